@@ -2,80 +2,147 @@ package com.beanvisionary.ai.service;
 
 import com.beanvisionary.common.ChatResponse;
 import com.beanvisionary.common.ChatRequest;
+import com.beanvisionary.common.SessionKeys;
+import com.beanvisionary.common.ToolCall;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.chat.messages.SystemMessage;
-import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class AiConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(AiConsumer.class);
 
-    private final VectorStore vectorStore;
+    private final Retriever retriever;
+    private final ContextPacker contextPacker;
+    private final PromptLayout promptLayout;
+    private final StreamPublisher streamPublisher;
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final String defaultTopic;
     private final CustomOllamaService customOllamaService;
     private final ObjectMapper objectMapper;
+    private final PartialResponseBatcher partialResponseBatcher;
+    private final RequestDispatcher requestDispatcher;
+    private final SemanticResponseCache semanticCache;
+    private final PromptResultCache promptCache;
 
     public AiConsumer(
-            VectorStore vectorStore,
+            Retriever retriever,
+            ContextPacker contextPacker,
+            PromptLayout promptLayout,
+            StreamPublisher streamPublisher,
             KafkaTemplate<String, Object> kafkaTemplate,
             CustomOllamaService customOllamaService,
             ObjectMapper objectMapper,
+            PartialResponseBatcher partialResponseBatcher,
+            RequestDispatcher requestDispatcher,
+            SemanticResponseCache semanticCache,
+            PromptResultCache promptCache,
             @Value("${spring.kafka.template.default-topic}") String defaultTopic) {
-        this.vectorStore = vectorStore;
+        this.retriever = retriever;
+        this.contextPacker = contextPacker;
+        this.promptLayout = promptLayout;
+        this.streamPublisher = streamPublisher;
         this.kafkaTemplate = kafkaTemplate;
         this.customOllamaService = customOllamaService;
         this.defaultTopic = defaultTopic;
         this.objectMapper = objectMapper;
+        this.partialResponseBatcher = partialResponseBatcher;
+        this.requestDispatcher = requestDispatcher;
+        this.semanticCache = semanticCache;
+        this.promptCache = promptCache;
     }
 
-    @KafkaListener(topics = "ai.requests.v1", groupId = "ai-service")
-    public void handle(ChatRequest chatRequest) {
-        logger.info("Received message from Kafka, processing request: {}", chatRequest.requestId());
+    @KafkaListener(id = RequestDispatcher.LISTENER_ID, topics = "ai.requests.v1", groupId = "ai-service",
+            containerFactory = "aiRequestsContainerFactory",
+            concurrency = "${app.kafka.concurrency:${app.kafka.partitions:6}}")
+    public void handle(ChatRequest chatRequest, Acknowledgment ack) {
+        logger.info("Received message from Kafka, dispatching request: {}", chatRequest.requestId());
+        requestDispatcher.dispatch(chatRequest.sessionId(), () -> process(chatRequest), ack::acknowledge);
+    }
+
+    private void process(ChatRequest chatRequest) {
+        logger.info("Processing request: {}", chatRequest.requestId());
 
         try {
-            
-            logger.info("Searching vector store for query: {}", chatRequest.query());
-            List<Document> similarDocuments = vectorStore.similaritySearch(chatRequest.query());
+
+            SemanticResponseCache.Lookup cacheLookup = null;
+            if (semanticCache.isEnabled()) {
+                cacheLookup = semanticCache.lookup(chatRequest.query());
+                if (cacheLookup.hit()) {
+                    kafkaTemplate.send(defaultTopic, SessionKeys.of(chatRequest.sessionId()), readdress(cacheLookup.cached(), chatRequest));
+                    return;
+                }
+            }
+
+            logger.info("Retrieving context for query: {}", chatRequest.query());
+            List<Document> similarDocuments = retriever.retrieve(chatRequest.query());
             logger.info("Found {} similar documents", similarDocuments.size());
+            ContextPacker.Packed packed = contextPacker.pack(similarDocuments);
+            logger.info("Packed {} documents into {} context tokens ({} near-duplicates, {} over budget)",
+                    packed.documents().size(), packed.tokens(), packed.duplicates(), packed.overBudget());
+
+            String promptKey = promptCache.isEnabled() ? promptCache.key(chatRequest.query(), packed.documents()) : null;
+            if (promptKey != null) {
+                PromptResultCache.Outcome cached = promptCache.get(promptKey);
+                if (cached != null) {
+                    logger.info("Prompt cache hit for request {}", chatRequest.requestId());
+                    if (cached.toolCall() != null) {
+                        customOllamaService.replayToolCall(chatRequest.requestId(), chatRequest.userId(),
+                                chatRequest.sessionId(), cached.toolCall());
+                    } else {
+                        kafkaTemplate.send(defaultTopic, SessionKeys.of(chatRequest.sessionId()), readdress(cached.answer(), chatRequest));
+                    }
+                    return;
+                }
+            }
 
-            String context = similarDocuments.stream()
-                    .map(Document::getText)
-                    .collect(Collectors.joining("\n\n"));
-            logger.info("Formatted context from documents");
+            String context = packed.text();
 
             try {
 
-                String systemPrompt = buildSystemPrompt(context);
-
-                Prompt prompt = new Prompt(List.of(
-                        new SystemMessage(systemPrompt),
-                        new UserMessage(chatRequest.query())
-                ));
+                Prompt prompt = new Prompt(promptLayout.messages(context, chatRequest.query()));
 
                 final String rid = chatRequest.requestId();
                 final String uid = chatRequest.userId();
                 final String sid = chatRequest.sessionId();
+                AtomicReference<ChatResponse> finalAnswer = new AtomicReference<>();
+                ToolCall dispatchedToolCall;
                 logger.info("Starting streaming response for request {}", rid);
-                customOllamaService.stream(prompt, rid, uid, sid, partial -> {
-
-                    logger.info("Sending partial response for request {}: {}", rid, partial);
-                    kafkaTemplate.send(defaultTopic, rid, partial);
-                });
+                try (PartialResponseBatcher.Batch batch = partialResponseBatcher.open(frame -> {
+
+                    logger.debug("Sending partial response for request {}: {}", rid, frame);
+                    streamPublisher.publish(frame, uid);
+                }, response -> {
+                    streamPublisher.publish(response);
+                    if (isCacheableAnswer(response)) {
+                        finalAnswer.set(response);
+                    }
+                })) {
+                    dispatchedToolCall = customOllamaService.stream(prompt, rid, uid, sid, batch);
+                }
+
+                if (cacheLookup != null && finalAnswer.get() != null) {
+                    semanticCache.put(cacheLookup, finalAnswer.get());
+                }
+                if (promptKey != null) {
+                    if (dispatchedToolCall != null) {
+                        promptCache.put(promptKey, new PromptResultCache.Outcome(null, dispatchedToolCall));
+                    } else if (finalAnswer.get() != null) {
+                        promptCache.put(promptKey, new PromptResultCache.Outcome(finalAnswer.get(), null));
+                    }
+                }
 
             } catch (Exception e) {
                 logger.error("Error calling Ollama API: {}", e.getMessage(), e);
@@ -89,7 +156,7 @@ public class AiConsumer {
                         List.of(),
                         Instant.now()
                 );
-                kafkaTemplate.send(defaultTopic, chatRequest.requestId(), errorResponse);
+                kafkaTemplate.send(defaultTopic, SessionKeys.of(chatRequest.sessionId()), errorResponse);
             }
 
         } catch (Exception e) {
@@ -104,10 +171,21 @@ public class AiConsumer {
                     List.of(),
                     Instant.now()
             );
-            kafkaTemplate.send(defaultTopic, chatRequest.requestId(), errorResponse);
+            kafkaTemplate.send(defaultTopic, SessionKeys.of(chatRequest.sessionId()), errorResponse);
         }
     }
 
+    private ChatResponse readdress(ChatResponse cached, ChatRequest chatRequest) {
+        return new ChatResponse(chatRequest.requestId(), chatRequest.userId(), chatRequest.sessionId(),
+                cached.answer(), cached.toolCalls(), cached.citations(), Instant.now());
+    }
+
+    private boolean isCacheableAnswer(ChatResponse response) {
+        String answer = response.answer();
+        return answer != null && !answer.isBlank()
+                && !answer.startsWith("Error");
+    }
+
     private String normalizeJson(String input) {
     if (input == null) return "";
     String cleaned = input
@@ -122,26 +200,4 @@ public class AiConsumer {
         .replace('’', '"');
     return cleaned;
     }
-
-    private String buildSystemPrompt(String context) {
-        return """
-                You are a helpful AI assistant with access to various tools. Use the following context to answer questions when relevant:
-                
-                CONTEXT:
-                %s
-                
-                AVAILABLE TOOLS:
-                1. checkSanctionsList - Use this when asked to check if a person is on a sanctions list
-                2. lookupOrder - Use this when asked about order status, order details, or order information
-                3. launchCampaign - Use this when asked to create or launch marketing campaigns
-                
-                GUIDELINES:
-                - If the user asks about checking someone against a sanctions list, use the checkSanctionsList tool
-                - If the user asks about order status or order details, use the lookupOrder tool
-                - If the user asks about launching campaigns or marketing, use the launchCampaign tool
-                - If you need to use a tool, call it with the appropriate parameters
-                - If the question can be answered from the context without tools, answer directly
-                - Be helpful and provide clear, accurate responses
-                """.formatted(context);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package com.beanvisionary.ai.service;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import com.knuddels.jtokkit.api.IntArrayList;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Assembles retrieved documents into the prompt context within a fixed token budget, so prompt
+ * size, and with it model prefill time, no longer grows with the number of documents retrieved.
+ *
+ * Documents are compared by the Jaccard similarity of their word 3-gram sets. A document at least
+ * {@code app.context.dedup-threshold} similar to one already kept is dropped as a near-duplicate.
+ * The rest are ordered by maximal marginal relevance: each step takes the document maximizing
+ * {@code lambda * relevance - (1 - lambda) * similarity to those already taken}, where relevance
+ * is the retrieval score scaled to the best one (or the retrieval rank when there are no scores).
+ * Documents are packed in that order while they fit into {@code app.context.max-tokens} cl100k
+ * tokens; if not even the first fits, it is truncated to the budget.
+ */
+@Component
+public class ContextPacker {
+
+    static final String SEPARATOR = "\n\n";
+
+    /**
+     * The documents chosen for the prompt, in prompt order, and what was left out.
+     */
+    public record Packed(List<Document> documents, String text, int tokens, int duplicates, int overBudget) {}
+
+    private record Candidate(Document document, String text, Set<String> shingles, double relevance, int tokens) {}
+
+    private final Encoding encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+    private final int separatorTokens = encoding.countTokens(SEPARATOR);
+    private final int maxTokens;
+    private final double dedupThreshold;
+    private final double lambda;
+    private final DistributionSummary packedTokens;
+    private final Counter packed;
+    private final Counter duplicates;
+    private final Counter overBudget;
+
+    public ContextPacker(
+            MeterRegistry meterRegistry,
+            @Value("${app.context.max-tokens:2000}") int maxTokens,
+            @Value("${app.context.dedup-threshold:0.9}") double dedupThreshold,
+            @Value("${app.context.mmr-lambda:0.7}") double lambda) {
+        this.maxTokens = maxTokens;
+        this.dedupThreshold = dedupThreshold;
+        this.lambda = lambda;
+        this.packedTokens = DistributionSummary.builder("ai.context.tokens")
+                .description("Tokens of retrieved context placed in the prompt")
+                .register(meterRegistry);
+        this.packed = Counter.builder("ai.context.documents").tag("result", "packed").register(meterRegistry);
+        this.duplicates = Counter.builder("ai.context.documents").tag("result", "duplicate").register(meterRegistry);
+        this.overBudget = Counter.builder("ai.context.documents").tag("result", "over-budget").register(meterRegistry);
+    }
+
+    public Packed pack(List<Document> retrieved) {
+        List<Candidate> candidates = new ArrayList<>();
+        int duplicateCount = 0;
+        double bestScore = retrieved.stream()
+                .map(Document::getScore)
+                .filter(s -> s != null && s > 0)
+                .mapToDouble(Double::doubleValue)
+                .max().orElse(0);
+        for (int i = 0; i < retrieved.size(); i++) {
+            Document document = retrieved.get(i);
+            String text = document.getText();
+            if (text == null || text.isBlank()) {
+                continue;
+            }
+            Set<String> shingles = shingles(text);
+            if (candidates.stream().anyMatch(c -> jaccard(c.shingles(), shingles) >= dedupThreshold)) {
+                duplicateCount++;
+                continue;
+            }
+            double relevance = bestScore > 0 && document.getScore() != null
+                    ? document.getScore() / bestScore
+                    : 1.0 - (double) i / retrieved.size();
+            candidates.add(new Candidate(document, text, shingles, relevance, encoding.countTokens(text)));
+        }
+
+        List<Document> documents = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        List<Candidate> selected = new ArrayList<>();
+        int tokens = 0;
+        int overBudgetCount = 0;
+        while (!candidates.isEmpty()) {
+            Candidate next = null;
+            double nextScore = Double.NEGATIVE_INFINITY;
+            for (Candidate c : candidates) {
+                double redundancy = 0;
+                for (Candidate s : selected) {
+                    redundancy = Math.max(redundancy, jaccard(c.shingles(), s.shingles()));
+                }
+                double score = lambda * c.relevance() - (1 - lambda) * redundancy;
+                if (score > nextScore) {
+                    nextScore = score;
+                    next = c;
+                }
+            }
+            candidates.remove(next);
+            selected.add(next);
+
+            int cost = next.tokens() + (texts.isEmpty() ? 0 : separatorTokens);
+            if (tokens + cost <= maxTokens) {
+                texts.add(next.text());
+                tokens += cost;
+            } else if (texts.isEmpty()) {
+                texts.add(truncate(next.text(), maxTokens));
+                tokens = maxTokens;
+            } else {
+                overBudgetCount++;
+                continue;
+            }
+            documents.add(next.document());
+        }
+
+        packed.increment(documents.size());
+        duplicates.increment(duplicateCount);
+        overBudget.increment(overBudgetCount);
+        packedTokens.record(tokens);
+        return new Packed(documents, String.join(SEPARATOR, texts), tokens, duplicateCount, overBudgetCount);
+    }
+
+    private String truncate(String text, int limit) {
+        IntArrayList encoded = encoding.encode(text);
+        IntArrayList kept = new IntArrayList(limit);
+        for (int i = 0; i < Math.min(limit, encoded.size()); i++) {
+            kept.add(encoded.get(i));
+        }
+        return encoding.decode(kept);
+    }
+
+    private static Set<String> shingles(String text) {
+        String[] words = text.toLowerCase(Locale.ROOT).split("\\W+");
+        List<String> tokens = new ArrayList<>(words.length);
+        for (String word : words) {
+            if (!word.isEmpty()) {
+                tokens.add(word);
+            }
+        }
+        if (tokens.size() < 3) {
+            return new HashSet<>(tokens);
+        }
+        Set<String> shingles = new HashSet<>();
+        for (int i = 0; i + 2 < tokens.size(); i++) {
+            shingles.add(tokens.get(i) + ' ' + tokens.get(i + 1) + ' ' + tokens.get(i + 2));
+        }
+        return shingles;
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() && b.isEmpty()) {
+            return 1;
+        }
+        Set<String> smaller = a.size() <= b.size() ? a : b;
+        Set<String> larger = smaller == a ? b : a;
+        int common = 0;
+        for (String s : smaller) {
+            if (larger.contains(s)) {
+                common++;
+            }
+        }
+        return (double) common / (a.size() + b.size() - common);
+    }
+}
@@ -1,9 +1,12 @@
 package com.beanvisionary.ai.service;
 
+import com.beanvisionary.common.SessionKeys;
 import com.beanvisionary.common.ToolCall;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.messages.AssistantMessage;
@@ -15,20 +18,14 @@ import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
-import org.springframework.web.util.UriComponentsBuilder;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 @Service
@@ -36,27 +33,36 @@ public class CustomOllamaService {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomOllamaService.class);
 
-    private final RestClient restClient;
+    private final OllamaTransport transport;
     private final ObjectMapper objectMapper;
-    private final String baseUrl;
     private final String modelName;
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final ToolResultConsumer toolResultConsumer;
+    private final ToolSchemaRegistry toolSchemaRegistry;
+    private final IntentMatcher intentMatcher;
+    private final boolean deltaStreaming;
+    private final Timer firstChunk;
 
     public CustomOllamaService(
-            @Value("${spring.ai.ollama.base-url}") String baseUrl,
+            OllamaTransport transport,
             @Value("${spring.ai.ollama.chat.options.model}") String modelName,
             KafkaTemplate<String, Object> kafkaTemplate,
-            @Lazy ToolResultConsumer toolResultConsumer) {
-        this.baseUrl = baseUrl;
+            @Lazy ToolResultConsumer toolResultConsumer,
+            ToolSchemaRegistry toolSchemaRegistry,
+            IntentMatcher intentMatcher,
+            MeterRegistry meterRegistry,
+            @Value("${app.streaming.mode:delta}") String streamingMode) {
+        this.transport = transport;
         this.modelName = modelName;
         this.kafkaTemplate = kafkaTemplate;
         this.toolResultConsumer = toolResultConsumer;
+        this.toolSchemaRegistry = toolSchemaRegistry;
+        this.intentMatcher = intentMatcher;
+        this.deltaStreaming = !"cumulative".equalsIgnoreCase(streamingMode);
         this.objectMapper = new ObjectMapper();
-        this.restClient = RestClient.builder()
-                .defaultHeader(HttpHeaders.ACCEPT, MediaType.ALL_VALUE)
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .build();
+        this.firstChunk = Timer.builder("ai.ollama.first.chunk")
+                .description("Time from sending a streaming chat request to its first response chunk")
+                .register(meterRegistry);
     }
 
     public ChatResponse call(Prompt prompt) {
@@ -65,11 +71,12 @@ public class CustomOllamaService {
             Map<String, Object> requestBody = Map.of(
                     "model", modelName,
                     "messages", ollamaMessages,
-                    "stream", false
+                    "stream", false,
+                    "keep_alive", toolSchemaRegistry.keepAlive()
             );
 
-            String response = restClient.post()
-                    .uri(UriComponentsBuilder.fromHttpUrl(baseUrl).path("/api/chat").build().toUri())
+            String response = transport.restClient().post()
+                    .uri(transport.chatUri())
                     .body(requestBody)
                     .retrieve()
                     .body(String.class);
@@ -88,63 +95,63 @@ public class CustomOllamaService {
         }
     }
 
-    public void stream(Prompt prompt,
-                       String requestId,
-                       String userId,
-                       String sessionId,
-                       Consumer<com.beanvisionary.common.ChatResponse> callback) {
+    /**
+     * Streams a chat completion, passing partial and final answers to the callback.
+     *
+     * @return the tool call dispatched to {@code ai.tool.calls.v1} instead of a final answer, or null
+     */
+    public ToolCall stream(Prompt prompt,
+                           String requestId,
+                           String userId,
+                           String sessionId,
+                           Consumer<com.beanvisionary.common.ChatResponse> callback) {
 
         toolResultConsumer.storeRequestContext(requestId, userId, sessionId);
 
         List<Map<String, Object>> ollamaMessages = toOllamaMessages(prompt);
         
-        List<Map<String, Object>> tools = getAvailableTools();
-        
-        Map<String, Object> requestBody = Map.of(
-                "model", modelName,
-                "messages", ollamaMessages,
-                "stream", true,
-                "tools", tools
-        );
+        byte[] requestBody = toolSchemaRegistry.streamRequestBody(ollamaMessages);
 
         StringBuilder responseContent = new StringBuilder();
         List<ToolCall> detectedToolCalls = new ArrayList<>();
         
+        long started = System.nanoTime();
         try {
-            restClient.post().uri(UriComponentsBuilder.fromHttpUrl(baseUrl).path("/api/chat").build().toUri()).body(requestBody).exchange((req, resp) -> {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(resp.getBody(), StandardCharsets.UTF_8))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        line = line.trim();
-                        if (line.isEmpty()) continue;
-                        JsonNode node;
-                        try {
-                            node = objectMapper.readTree(line);
-                        } catch (Exception parseEx) {
-                            continue;
+            return transport.restClient().post().uri(transport.chatUri()).body(requestBody).exchange((req, resp) -> {
+                ToolCall dispatchedToolCall = null;
+                try (OllamaStreamDecoder decoder = new OllamaStreamDecoder(objectMapper, resp.getBody())) {
+                    int deltaSeq = 0;
+                    boolean first = true;
+                    while (decoder.next()) {
+                        if (first) {
+                            firstChunk.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                            first = false;
                         }
-                        boolean done = node.path("done").asBoolean(false);
-                        String thinking = node.path("thinking").asText(null);
-                        if (thinking != null && !thinking.isBlank()) {
-                            callback.accept(new com.beanvisionary.common.ChatResponse(
-                                    requestId, userId, sessionId, "[partial][thinking] " + thinking,
-                                    List.of(), List.of(), Instant.now()
-                            ));
+                        boolean done = decoder.done();
+                        if (decoder.thinking().length() > 0) {
+                            String thinking = decoder.thinking().toString();
+                            if (!thinking.isBlank()) {
+                                callback.accept(new com.beanvisionary.common.ChatResponse(
+                                        requestId, userId, sessionId, "[partial][thinking] " + thinking,
+                                        List.of(), List.of(), Instant.now()
+                                ));
+                            }
                         }
                         
-                        JsonNode messageNode = node.path("message");
-                        if (messageNode.has("tool_calls")) {
-                            JsonNode toolCallsNode = messageNode.path("tool_calls");
+                        JsonNode toolCallsNode = decoder.toolCalls();
+                        if (toolCallsNode != null) {
                             if (toolCallsNode.isArray()) {
                                 for (JsonNode toolCallNode : toolCallsNode) {
                                     String toolName = toolCallNode.path("function").path("name").asText();
-                                    String argumentsJson = toolCallNode.path("function").path("arguments").asText();
+                                    JsonNode argumentsNode = toolCallNode.path("function").path("arguments");
                                     try {
                                         Map<String, Object> arguments;
-                                        if (argumentsJson == null || argumentsJson.trim().isEmpty()) {
+                                        if (argumentsNode.isObject()) {
+                                            arguments = objectMapper.convertValue(argumentsNode, new TypeReference<Map<String, Object>>() {});
+                                        } else if (argumentsNode.asText().trim().isEmpty()) {
                                             arguments = Map.of();
                                         } else {
-                                            arguments = objectMapper.readValue(argumentsJson, new TypeReference<Map<String, Object>>() {});
+                                            arguments = objectMapper.readValue(argumentsNode.asText(), new TypeReference<Map<String, Object>>() {});
                                         }
                                         ToolCall toolCall = new ToolCall(toolName, arguments);
                                         detectedToolCalls.add(toolCall);
@@ -157,9 +164,9 @@ public class CustomOllamaService {
                             }
                         }
                         
-                        String fragment = messageNode.path("content").asText("");
-                        if (!fragment.isEmpty()) {
-                            appendContentFragment(responseContent, fragment);
+                        int previousLength = responseContent.length();
+                        if (decoder.content().length() > 0) {
+                            appendContentFragment(responseContent, decoder.content().toString());
                         }
                         
                         if (done) {
@@ -187,14 +194,8 @@ public class CustomOllamaService {
                             if (bestToolCall != null) {
                                 detectedToolCalls.clear();
                                 detectedToolCalls.add(bestToolCall);
-                                
-                                Map<String, Object> toolCallMessage = Map.of(
-                                        "requestId", requestId,
-                                        "tool", bestToolCall.name(),
-                                        "args", bestToolCall.args()
-                                );
-                                kafkaTemplate.send("ai.tool.calls.v1", requestId, toolCallMessage);
-                                logger.info("Sent SINGLE tool call to Kafka: {} for request {} with args: {}", bestToolCall.name(), requestId, bestToolCall.args());
+                                sendToolCall(requestId, sessionId, bestToolCall);
+                                dispatchedToolCall = bestToolCall;
                             }
                             
                             if (detectedToolCalls.isEmpty()) {
@@ -205,6 +206,15 @@ public class CustomOllamaService {
                                 ));
                             }
                             break;
+                        } else if (deltaStreaming) {
+
+                            if (responseContent.length() > previousLength) {
+                                String delta = responseContent.substring(previousLength);
+                                callback.accept(new com.beanvisionary.common.ChatResponse(
+                                        requestId, userId, sessionId, "[partial][delta:" + deltaSeq++ + "] " + delta,
+                                        List.of(), List.of(), Instant.now()
+                                ));
+                            }
                         } else if (responseContent.length() > 0) {
 
                             String partialContent = responseContent.toString();
@@ -215,7 +225,7 @@ public class CustomOllamaService {
                         }
                     }
                 }
-                return null;
+                return dispatchedToolCall;
             });
         } catch (Exception e) {
             logger.error("Error in streaming call", e);
@@ -223,9 +233,30 @@ public class CustomOllamaService {
                     requestId, userId, sessionId,
                     "Error (stream) calling Ollama: " + e.getMessage(), List.of(), List.of(), Instant.now()
             ));
+            return null;
         }
     }
 
+    /**
+     * Dispatches a previously decided tool call for a new request without contacting Ollama.
+     */
+    public void replayToolCall(String requestId, String userId, String sessionId, ToolCall toolCall) {
+        toolResultConsumer.storeRequestContext(requestId, userId, sessionId);
+        sendToolCall(requestId, sessionId, toolCall);
+    }
+
+    private void sendToolCall(String requestId, String sessionId, ToolCall toolCall) {
+        String key = SessionKeys.of(sessionId);
+        Map<String, Object> toolCallMessage = Map.of(
+                "requestId", requestId,
+                "sessionId", key,
+                "tool", toolCall.name(),
+                "args", toolCall.args()
+        );
+        kafkaTemplate.send("ai.tool.calls.v1", key, toolCallMessage);
+        logger.info("Sent SINGLE tool call to Kafka: {} for request {} with args: {}", toolCall.name(), requestId, toolCall.args());
+    }
+
     private List<Map<String, Object>> toOllamaMessages(Prompt prompt) {
         List<Map<String, Object>> list = new ArrayList<>();
         for (Message m : prompt.getInstructions()) {
@@ -240,74 +271,6 @@ public class CustomOllamaService {
         return list;
     }
 
-    private List<Map<String, Object>> getAvailableTools() {
-        return List.of(
-                Map.of(
-                        "type", "function",
-                        "function", Map.of(
-                                "name", "checkSanctionsList",
-                                "description", "Check if a person is on the sanctions list",
-                                "parameters", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(
-                                                "name", Map.of(
-                                                        "type", "string",
-                                                        "description", "The full name of the person to check"
-                                                )
-                                        ),
-                                        "required", List.of("name")
-                                )
-                        )
-                ),
-                Map.of(
-                        "type", "function",
-                        "function", Map.of(
-                                "name", "lookupOrder",
-                                "description", "Look up order details by order ID",
-                                "parameters", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(
-                                                "orderId", Map.of(
-                                                        "type", "string",
-                                                        "description", "The order ID to look up"
-                                                )
-                                        ),
-                                        "required", List.of("orderId")
-                                )
-                        )
-                ),
-                Map.of(
-                        "type", "function",
-                        "function", Map.of(
-                                "name", "launchCampaign",
-                                "description", "Launch a marketing campaign",
-                                "parameters", Map.of(
-                                        "type", "object",
-                                        "properties", Map.of(
-                                                "budget", Map.of(
-                                                        "type", "number",
-                                                        "description", "Campaign budget in dollars"
-                                                ),
-                                                "channel", Map.of(
-                                                        "type", "string",
-                                                        "description", "Marketing channel (e.g., LinkedIn, Facebook)"
-                                                ),
-                                                "audienceId", Map.of(
-                                                        "type", "number",
-                                                        "description", "Target audience ID"
-                                                ),
-                                                "creative", Map.of(
-                                                        "type", "string",
-                                                        "description", "Creative asset identifier"
-                                                )
-                                        ),
-                                        "required", List.of("budget")
-                                )
-                        )
-                )
-        );
-    }
-
     private String extractUserQuery(List<Map<String, Object>> messages) {
         return messages.stream()
                 .filter(msg -> "user".equals(msg.get("role")))
@@ -316,72 +279,6 @@ public class CustomOllamaService {
                 .orElse("");
     }
 
-    private ToolCall suggestToolForQuery(String query) {
-        if (query == null) return null;
-        String lowerQuery = query.toLowerCase();
-        
-        if ((lowerQuery.contains("sanction") || lowerQuery.contains("check")) && 
-            (lowerQuery.contains("name") || lowerQuery.contains("person") || lowerQuery.contains("customer"))) {
-
-            String name = extractNameFromQuery(query);
-            if (name != null) {
-                return new ToolCall("checkSanctionsList", Map.of("name", name));
-            }
-        }
-        
-        if ((lowerQuery.contains("order") || lowerQuery.contains("status")) && 
-            (lowerQuery.contains("look") || lowerQuery.contains("check") || lowerQuery.contains("find"))) {
-            String orderId = extractOrderIdFromQuery(query);
-            if (orderId != null) {
-                return new ToolCall("lookupOrder", Map.of("orderId", orderId));
-            }
-        }
-        
-        if (lowerQuery.contains("campaign") || lowerQuery.contains("launch") || lowerQuery.contains("marketing")) {
-
-            return new ToolCall("launchCampaign", Map.of("budget", 500));
-        }
-        
-        return null;
-    }
-
-    private String extractNameFromQuery(String query) {
-
-        String[] patterns = {
-                "customer\\s+([A-Z][a-z]+\\s+[A-Z][a-z]+)",
-                "person\\s+([A-Z][a-z]+\\s+[A-Z][a-z]+)",
-                "([A-Z][a-z]+\\s+[A-Z][a-z]+)\\s+is",
-                "\\b([A-Z][a-z]+\\s+[A-Z][a-z]+)\\b"
-        };
-        
-        for (String pattern : patterns) {
-            java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-            java.util.regex.Matcher m = p.matcher(query);
-            if (m.find()) {
-                return m.group(1);
-            }
-        }
-        return null;
-    }
-
-    private String extractOrderIdFromQuery(String query) {
-
-        String[] patterns = {
-                "order\\s+([A-Z]?\\d+[A-Z]*)",
-                "order\\s+ID\\s+([A-Z]?\\d+[A-Z]*)",
-                "\\b([A-Z]\\d{4,})\\b"
-        };
-        
-        for (String pattern : patterns) {
-            java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern, java.util.regex.Pattern.CASE_INSENSITIVE);
-            java.util.regex.Matcher m = p.matcher(query);
-            if (m.find()) {
-                return m.group(1);
-            }
-        }
-        return null;
-    }
-
     /**
      * Appends a content fragment to the response builder with intelligent deduplication.
      * 
@@ -405,7 +302,7 @@ public class CustomOllamaService {
         } else {
 
             if (fragment.length() >= currentLength &&
-                    fragment.regionMatches(0, responseContent, 0, currentLength)) {
+                    fragment.regionMatches(0, responseContent.toString(), 0, currentLength)) {
 
                 if (fragment.length() > currentLength) {
                     responseContent.append(fragment.substring(currentLength));
@@ -444,7 +341,7 @@ public class CustomOllamaService {
         }
 
         String query = extractUserQuery(ollamaMessages);
-        ToolCall suggestedTool = suggestToolForQuery(query);
+        ToolCall suggestedTool = intentMatcher.match(query);
         if (suggestedTool != null) {
             logger.info("Using suggested tool call: {} with args: {}", suggestedTool.name(), suggestedTool.args());
             return suggestedTool;
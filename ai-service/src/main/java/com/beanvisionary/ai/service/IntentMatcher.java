@@ -0,0 +1,123 @@
+package com.beanvisionary.ai.service;
+
+import com.beanvisionary.common.ToolCall;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fallback router that suggests a tool call from the user query when the model did not produce one.
+ *
+ * Rules are loaded from {@code app.intents.location} and evaluated in order. A rule applies when
+ * every keyword group in {@code allOf} has at least one keyword in the query (case-insensitive
+ * substring match) and every extractor finds a value. All keywords of all rules are matched in a
+ * single pass by a {@link KeywordAutomaton}; extractor patterns are compiled once at startup.
+ */
+@Component
+public class IntentMatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(IntentMatcher.class);
+
+    record RuleDefinition(String tool, List<List<String>> allOf,
+                          Map<String, ExtractorDefinition> extract, Map<String, Object> args) {}
+
+    record ExtractorDefinition(List<String> patterns, boolean caseInsensitive) {}
+
+    private record Extractor(String arg, List<Pattern> patterns) {}
+
+    private record Rule(String tool, List<BitSet> groups, List<Extractor> extractors, Map<String, Object> args) {}
+
+    private final KeywordAutomaton automaton;
+    private final List<Rule> rules = new ArrayList<>();
+
+    public IntentMatcher(@Value("${app.intents.location:classpath:tools/intent-rules.json}") Resource location) {
+        List<RuleDefinition> definitions = load(location);
+        Map<String, Integer> keywordIds = new LinkedHashMap<>();
+
+        for (RuleDefinition definition : definitions) {
+            List<BitSet> groups = new ArrayList<>();
+            for (List<String> group : definition.allOf() != null ? definition.allOf() : List.<List<String>>of()) {
+                BitSet ids = new BitSet();
+                for (String keyword : group) {
+                    ids.set(keywordIds.computeIfAbsent(keyword.toLowerCase(), k -> keywordIds.size()));
+                }
+                groups.add(ids);
+            }
+
+            List<Extractor> extractors = new ArrayList<>();
+            if (definition.extract() != null) {
+                definition.extract().forEach((arg, extractor) -> extractors.add(new Extractor(arg,
+                        extractor.patterns().stream()
+                                .map(p -> Pattern.compile(p, extractor.caseInsensitive() ? Pattern.CASE_INSENSITIVE : 0))
+                                .toList())));
+            }
+
+            rules.add(new Rule(definition.tool(), groups, extractors,
+                    definition.args() != null ? definition.args() : Map.of()));
+        }
+
+        this.automaton = new KeywordAutomaton(List.copyOf(keywordIds.keySet()));
+        logger.info("Loaded {} intent rules with {} keywords from {}", rules.size(), keywordIds.size(), location);
+    }
+
+    /**
+     * @return the tool call of the first matching rule, or null when no rule applies
+     */
+    public ToolCall match(String query) {
+        if (query == null) return null;
+        BitSet found = automaton.scan(query);
+
+        for (Rule rule : rules) {
+            if (!rule.groups().stream().allMatch(group -> group.intersects(found))) {
+                continue;
+            }
+            Map<String, Object> args = new LinkedHashMap<>(rule.args());
+            boolean complete = true;
+            for (Extractor extractor : rule.extractors()) {
+                String value = extract(extractor, query);
+                if (value == null) {
+                    complete = false;
+                    break;
+                }
+                args.put(extractor.arg(), value);
+            }
+            if (complete) {
+                return new ToolCall(rule.tool(), args);
+            }
+        }
+        return null;
+    }
+
+    private String extract(Extractor extractor, String query) {
+        for (Pattern pattern : extractor.patterns()) {
+            Matcher m = pattern.matcher(query);
+            if (m.find()) {
+                return m.group(1);
+            }
+        }
+        return null;
+    }
+
+    private static List<RuleDefinition> load(Resource location) {
+        try (InputStream is = location.getInputStream()) {
+            return new ObjectMapper().readValue(is, new TypeReference<>() {});
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read intent rules from " + location, e);
+        }
+    }
+}
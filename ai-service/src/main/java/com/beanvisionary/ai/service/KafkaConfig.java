@@ -1,14 +1,18 @@
 package com.beanvisionary.ai.service;
 
+import com.beanvisionary.common.EventMessageConverter;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.kafka.support.converter.JsonMessageConverter;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.converter.RecordMessageConverter;
 
 import java.io.IOException;
@@ -32,7 +36,22 @@ public class KafkaConfig {
 
     @Bean
     public RecordMessageConverter recordMessageConverter(ObjectMapper kafkaObjectMapper) {
-        return new JsonMessageConverter(kafkaObjectMapper);
+        return new EventMessageConverter(kafkaObjectMapper);
+    }
+
+    /**
+     * Container factory for {@code ai.requests.v1}: records are acknowledged by {@link RequestDispatcher}
+     * once processing completes, possibly out of order, and the container only commits contiguous offsets.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> aiRequestsContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        return factory;
     }
     
     private static class UnixTimestampDeserializer extends JsonDeserializer<Instant> {
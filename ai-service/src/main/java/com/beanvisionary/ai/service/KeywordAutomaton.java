@@ -0,0 +1,98 @@
+package com.beanvisionary.ai.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton reporting which keywords occur anywhere in a text, ignoring case.
+ *
+ * Matching is substring based, like {@code text.toLowerCase().contains(keyword)}, but every
+ * keyword is found in a single pass over the text without lower-casing it first. ASCII input is
+ * served from a dense transition table; other characters follow the goto/failure links.
+ */
+final class KeywordAutomaton {
+
+    private static final int ASCII = 128;
+
+    private final List<Map<Character, Integer>> gotoFn = new ArrayList<>();
+    private final List<BitSet> outputs = new ArrayList<>();
+    private final int[] failure;
+    private final int[] asciiTable;
+
+    KeywordAutomaton(List<String> keywords) {
+        newState();
+        for (int id = 0; id < keywords.size(); id++) {
+            int state = 0;
+            for (char c : keywords.get(id).toLowerCase().toCharArray()) {
+                Integer next = gotoFn.get(state).get(c);
+                if (next == null) {
+                    next = newState();
+                    gotoFn.get(state).put(c, next);
+                }
+                state = next;
+            }
+            outputs.get(state).set(id);
+        }
+
+        failure = new int[gotoFn.size()];
+        Queue<Integer> queue = new ArrayDeque<>(gotoFn.get(0).values());
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            for (Map.Entry<Character, Integer> edge : gotoFn.get(state).entrySet()) {
+                int child = edge.getValue();
+                int fallback = failure[state];
+                while (fallback != 0 && !gotoFn.get(fallback).containsKey(edge.getKey())) {
+                    fallback = failure[fallback];
+                }
+                Integer target = gotoFn.get(fallback).get(edge.getKey());
+                failure[child] = target != null && target != child ? target : 0;
+                outputs.get(child).or(outputs.get(failure[child]));
+                queue.add(child);
+            }
+        }
+
+        asciiTable = new int[gotoFn.size() * ASCII];
+        for (int state = 0; state < gotoFn.size(); state++) {
+            for (char c = 0; c < ASCII; c++) {
+                asciiTable[state * ASCII + c] = transition(state, c);
+            }
+        }
+    }
+
+    /**
+     * @return the ids (positions in the constructor list) of every keyword found in the text
+     */
+    BitSet scan(CharSequence text) {
+        BitSet found = new BitSet();
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            state = c < ASCII ? asciiTable[state * ASCII + c] : transition(state, c);
+            BitSet out = outputs.get(state);
+            if (!out.isEmpty()) {
+                found.or(out);
+            }
+        }
+        return found;
+    }
+
+    private int transition(int state, char c) {
+        while (true) {
+            Integer next = gotoFn.get(state).get(c);
+            if (next != null) return next;
+            if (state == 0) return 0;
+            state = failure[state];
+        }
+    }
+
+    private int newState() {
+        gotoFn.add(new HashMap<>());
+        outputs.add(new BitSet());
+        return gotoFn.size() - 1;
+    }
+}
@@ -0,0 +1,47 @@
+package com.beanvisionary.ai.service;
+
+import com.beanvisionary.common.LexicalIndex;
+import com.beanvisionary.common.VectorStoreChanged;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.KafkaListener;
+
+import java.nio.file.Path;
+
+import static com.beanvisionary.common.KafkaTopics.VECTOR_STORE_CHANGES;
+
+/**
+ * Opens the lexical index written by vector-service read-only from {@code app.lexical.directory}
+ * when {@code app.lexical.enabled}, and reloads it whenever vector-service reports a write.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.lexical.enabled", havingValue = "true")
+public class LexicalIndexConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(LexicalIndexConfig.class);
+
+    private final ObjectProvider<LexicalIndex> index;
+
+    public LexicalIndexConfig(ObjectProvider<LexicalIndex> index) {
+        this.index = index;
+    }
+
+    @Bean
+    public LexicalIndex lexicalIndex(@Value("${app.lexical.directory}") String directory) {
+        return new LexicalIndex(Path.of(directory), true);
+    }
+
+    @KafkaListener(topics = VECTOR_STORE_CHANGES, groupId = "ai-service-lexical-${random.uuid}",
+            properties = "auto.offset.reset=latest")
+    public void onVectorStoreChanged(VectorStoreChanged change) {
+        LexicalIndex lexical = index.getObject();
+        lexical.reload();
+        logger.info("Reloaded lexical index after {} documents were written to {}; {} documents indexed",
+                change.documentCount(), change.collection(), lexical.size());
+    }
+}
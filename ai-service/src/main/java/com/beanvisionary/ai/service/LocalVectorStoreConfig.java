@@ -0,0 +1,70 @@
+package com.beanvisionary.ai.service;
+
+import com.beanvisionary.common.FlatVectorStore;
+import com.beanvisionary.common.HnswVectorStore;
+import com.beanvisionary.common.LocalVectorStore;
+import com.beanvisionary.common.VectorStoreChanged;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.KafkaListener;
+
+import java.nio.file.Path;
+
+import static com.beanvisionary.common.KafkaTopics.VECTOR_STORE_CHANGES;
+
+/**
+ * Serves retrieval from the local index written by vector-service instead of Qdrant, when
+ * {@code spring.ai.vectorstore.type} is {@code hnsw} or {@code flat}. The index is opened read-only
+ * from the shared directory and reloaded whenever vector-service reports a write.
+ */
+@Configuration
+@ConditionalOnExpression("'${spring.ai.vectorstore.type:qdrant}' == 'hnsw' or '${spring.ai.vectorstore.type:qdrant}' == 'flat'")
+public class LocalVectorStoreConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalVectorStoreConfig.class);
+
+    private final ObjectProvider<LocalVectorStore> store;
+
+    public LocalVectorStoreConfig(ObjectProvider<LocalVectorStore> store) {
+        this.store = store;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.ai.vectorstore.type", havingValue = "hnsw")
+    public HnswVectorStore hnswVectorStore(
+            EmbeddingModel embeddingModel,
+            @Value("${app.vectorstore.hnsw.directory}") String directory,
+            @Value("${app.vectorstore.hnsw.m:16}") int m,
+            @Value("${app.vectorstore.hnsw.ef-construction:200}") int efConstruction,
+            @Value("${app.vectorstore.hnsw.ef-search:64}") int efSearch) {
+        return new HnswVectorStore(embeddingModel, new HnswVectorStore.Options(m, efConstruction, efSearch),
+                Path.of(directory), true);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.ai.vectorstore.type", havingValue = "flat")
+    public FlatVectorStore flatVectorStore(
+            EmbeddingModel embeddingModel,
+            @Value("${app.vectorstore.flat.directory}") String directory,
+            @Value("${app.vectorstore.flat.rescore-factor:4}") int rescoreFactor,
+            @Value("${app.vectorstore.flat.min-slots-per-task:16384}") int minSlotsPerTask) {
+        return new FlatVectorStore(embeddingModel, new FlatVectorStore.Options(rescoreFactor, minSlotsPerTask),
+                Path.of(directory), true);
+    }
+
+    @KafkaListener(topics = VECTOR_STORE_CHANGES, groupId = "ai-service-index-${random.uuid}",
+            properties = "auto.offset.reset=latest")
+    public void onVectorStoreChanged(VectorStoreChanged change) {
+        LocalVectorStore index = store.getObject();
+        index.reload();
+        logger.info("Reloaded local index after {} documents were written to {}; {} documents live",
+                change.documentCount(), change.collection(), index.size());
+    }
+}
@@ -0,0 +1,64 @@
+package com.beanvisionary.ai.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the chat model once the application is ready, so the first user request does not pay for
+ * the model load.
+ *
+ * The warm-up request carries the same tools and keep-alive as real requests and the static part
+ * of the system prompt from {@link PromptLayout}, and generates a single token. Ollama keeps the
+ * processed prompt in the model's cache, so with the prefix-stable layout the first requests also
+ * reuse the computation for the shared prefix. It runs on a virtual thread and failures are only
+ * logged: an unreachable Ollama must not keep the service from starting.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ollama.warmup", havingValue = "true", matchIfMissing = true)
+public class ModelWarmup {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModelWarmup.class);
+
+    private final OllamaTransport transport;
+    private final ToolSchemaRegistry toolSchemaRegistry;
+    private final PromptLayout promptLayout;
+
+    public ModelWarmup(OllamaTransport transport, ToolSchemaRegistry toolSchemaRegistry, PromptLayout promptLayout) {
+        this.transport = transport;
+        this.toolSchemaRegistry = toolSchemaRegistry;
+        this.promptLayout = promptLayout;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        Thread.ofVirtual().name("ollama-warmup").start(this::warmUp);
+    }
+
+    void warmUp() {
+        List<Map<String, Object>> messages = new ArrayList<>();
+        if (!promptLayout.staticPrefix().isEmpty()) {
+            messages.add(Map.of("role", "system", "content", promptLayout.staticPrefix()));
+        }
+        messages.add(Map.of("role", "user", "content", "Hello"));
+        long started = System.nanoTime();
+        try {
+            transport.restClient().post()
+                    .uri(transport.chatUri())
+                    .body(toolSchemaRegistry.warmupRequestBody(messages))
+                    .retrieve()
+                    .toBodilessEntity();
+            logger.info("Warmed up Ollama model in {} ms (keep-alive {})",
+                    (System.nanoTime() - started) / 1_000_000, toolSchemaRegistry.keepAlive());
+        } catch (Exception e) {
+            logger.warn("Ollama warm-up failed, the first request will load the model: {}", e.getMessage());
+        }
+    }
+}
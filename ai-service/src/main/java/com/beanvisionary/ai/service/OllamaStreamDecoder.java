@@ -0,0 +1,183 @@
+package com.beanvisionary.ai.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Token-level decoder for the NDJSON body of a streaming Ollama {@code /api/chat} call.
+ *
+ * Splits the response stream into lines as bytes, in buffers reused across chunks, and reads
+ * each line with a Jackson {@link JsonParser} instead of decoding it to a String and building a
+ * {@link JsonNode} tree. Only {@code done}, {@code thinking}, {@code message.content} and
+ * {@code message.tool_calls} are extracted; everything else is skipped. A line that is not valid
+ * JSON is skipped and decoding resumes at the next line. Text fields are copied into buffers that
+ * are reused across chunks, so callers must consume them before calling {@link #next()} again.
+ */
+final class OllamaStreamDecoder implements Closeable {
+
+    private final ObjectMapper objectMapper;
+    private final InputStream in;
+    private final byte[] readBuffer = new byte[8192];
+    private int readPos;
+    private int readLimit;
+    private byte[] line = new byte[8192];
+    private int lineLength;
+    private JsonParser parser;
+    private final StringBuilder thinking = new StringBuilder();
+    private final StringBuilder content = new StringBuilder();
+    private JsonNode toolCalls;
+    private boolean done;
+
+    OllamaStreamDecoder(ObjectMapper objectMapper, InputStream in) throws IOException {
+        this.objectMapper = objectMapper;
+        this.in = in;
+    }
+
+    /**
+     * Advances to the next chunk.
+     *
+     * @return false once the stream is exhausted
+     */
+    boolean next() throws IOException {
+        while (readLine()) {
+            if (isBlank()) {
+                continue;
+            }
+            try (JsonParser lineParser = objectMapper.createParser(line, 0, lineLength)) {
+                parser = lineParser;
+                readChunk();
+                return true;
+            } catch (JsonProcessingException e) {
+                // malformed line: skip it, the next one starts a new chunk
+            } finally {
+                parser = null;
+            }
+        }
+        return false;
+    }
+
+    private void readChunk() throws IOException {
+        thinking.setLength(0);
+        content.setLength(0);
+        toolCalls = null;
+        done = false;
+
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "done" -> done = value == JsonToken.VALUE_TRUE;
+                case "thinking" -> appendText(thinking);
+                case "message" -> readMessage();
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    boolean done() {
+        return done;
+    }
+
+    CharSequence thinking() {
+        return thinking;
+    }
+
+    CharSequence content() {
+        return content;
+    }
+
+    /**
+     * @return the {@code message.tool_calls} array of the current chunk, or null when absent
+     */
+    JsonNode toolCalls() {
+        return toolCalls;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads the next line, without its terminator, into {@link #line}.
+     *
+     * @return false at the end of the stream
+     */
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        boolean read = false;
+        while (true) {
+            if (readPos == readLimit) {
+                readLimit = in.read(readBuffer);
+                readPos = 0;
+                if (readLimit <= 0) {
+                    readLimit = 0;
+                    return read;
+                }
+            }
+            read = true;
+            int start = readPos;
+            while (readPos < readLimit && readBuffer[readPos] != '\n') {
+                readPos++;
+            }
+            appendToLine(start, readPos - start);
+            if (readPos < readLimit) {
+                readPos++;
+                return true;
+            }
+        }
+    }
+
+    private void appendToLine(int offset, int length) {
+        if (lineLength + length > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+        }
+        System.arraycopy(readBuffer, offset, line, lineLength, length);
+        lineLength += length;
+    }
+
+    private boolean isBlank() {
+        for (int i = 0; i < lineLength; i++) {
+            byte b = line[i];
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void readMessage() throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "content" -> appendText(content);
+                case "tool_calls" -> toolCalls = parser.readValueAsTree();
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private void appendText(StringBuilder target) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            target.append(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        } else {
+            parser.skipChildren();
+        }
+    }
+}
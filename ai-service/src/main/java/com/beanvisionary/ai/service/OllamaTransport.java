@@ -0,0 +1,94 @@
+package com.beanvisionary.ai.service;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ReactorClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP transport shared by all Ollama calls.
+ *
+ * Connections come from a bounded keep-alive pool, so concurrent streams reuse warm
+ * connections instead of paying connection setup before the first token. HTTPS endpoints
+ * negotiate HTTP/2 via ALPN when {@code app.ollama.http.http2} is enabled; plain HTTP stays on
+ * HTTP/1.1 keep-alive. Pool metrics are published to Micrometer under
+ * {@code reactor.netty.connection.provider.*} with the pool name {@code ollama}.
+ */
+@Component
+public class OllamaTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(OllamaTransport.class);
+
+    private final ConnectionProvider connectionProvider;
+    private final RestClient restClient;
+    private final URI chatUri;
+
+    public OllamaTransport(
+            @Value("${spring.ai.ollama.base-url}") String baseUrl,
+            @Value("${app.ollama.http.max-connections:32}") int maxConnections,
+            @Value("${app.ollama.http.max-idle-time-ms:60000}") long maxIdleTimeMs,
+            @Value("${app.ollama.http.pending-acquire-timeout-ms:10000}") long pendingAcquireTimeoutMs,
+            @Value("${app.ollama.http.connect-timeout-ms:5000}") int connectTimeoutMs,
+            @Value("${app.ollama.http.read-timeout-ms:120000}") long readTimeoutMs,
+            @Value("${app.ollama.http.stall-timeout-ms:30000}") long stallTimeoutMs,
+            @Value("${app.ollama.http.http2:true}") boolean http2) {
+        this.chatUri = UriComponentsBuilder.fromUriString(baseUrl).path("/api/chat").build().toUri();
+
+        this.connectionProvider = ConnectionProvider.builder("ollama")
+                .maxConnections(maxConnections)
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .evictInBackground(Duration.ofMillis(maxIdleTimeMs))
+                .metrics(true)
+                .build();
+
+        boolean secure = "https".equalsIgnoreCase(chatUri.getScheme());
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .doOnResponse((response, connection) -> connection.addHandlerLast(
+                        "ollamaStallTimeout", new ReadTimeoutHandler(stallTimeoutMs, TimeUnit.MILLISECONDS)));
+        if (secure && http2) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+
+        ReactorClientHttpRequestFactory requestFactory = new ReactorClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        this.restClient = RestClient.builder()
+                .requestFactory(requestFactory)
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.ALL_VALUE)
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+
+        logger.info("Ollama transport: {} (max connections: {}, http2: {})", chatUri, maxConnections, secure && http2);
+    }
+
+    public RestClient restClient() {
+        return restClient;
+    }
+
+    public URI chatUri() {
+        return chatUri;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        connectionProvider.dispose();
+    }
+}
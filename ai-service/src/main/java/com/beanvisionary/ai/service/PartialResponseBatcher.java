@@ -0,0 +1,149 @@
+package com.beanvisionary.ai.service;
+
+import com.beanvisionary.common.ChatResponse;
+import com.beanvisionary.common.SessionKeys;
+import com.beanvisionary.common.StreamFrame;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces the partial responses of a single streamed answer before they are published.
+ *
+ * Partial frames are buffered and flushed as one frame when either the flush interval has
+ * elapsed since the first buffered chunk or the buffered text reaches the configured size,
+ * whichever comes first. Any non-partial response (final answer or error) flushes the buffer
+ * before it is forwarded, so ordering is preserved and the final answer is never delayed.
+ *
+ * The batch takes the tagged partial responses {@link CustomOllamaService} produces and hands on
+ * typed {@link StreamFrame}s, numbering delta frames itself; final answers and errors are passed
+ * through as they are.
+ */
+@Component
+public class PartialResponseBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartialResponseBatcher.class);
+
+    static final String PARTIAL_PREFIX = "[partial] ";
+    static final String THINKING_PREFIX = "[partial][thinking] ";
+    static final String DELTA_PREFIX = "[partial][delta:";
+
+    private final long flushIntervalMs;
+    private final int flushMaxChars;
+    private final ScheduledExecutorService flusher;
+
+    public PartialResponseBatcher(
+            @Value("${app.streaming.flush-interval-ms:50}") long flushIntervalMs,
+            @Value("${app.streaming.flush-max-chars:256}") int flushMaxChars) {
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushMaxChars = flushMaxChars;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "partial-response-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Opens a batch for one request. The returned batch must be closed once the stream ends.
+     *
+     * @param frames receives the coalesced partial responses
+     * @param responses receives final answers and errors, after any frames buffered before them
+     */
+    public Batch open(Consumer<StreamFrame> frames, Consumer<ChatResponse> responses) {
+        return new Batch(frames, responses);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdownNow();
+    }
+
+    public final class Batch implements Consumer<ChatResponse>, AutoCloseable {
+
+        private final Consumer<StreamFrame> frames;
+        private final Consumer<ChatResponse> responses;
+        private final StringBuilder pendingDelta = new StringBuilder();
+        private final StringBuilder pendingThinking = new StringBuilder();
+        private String pendingCumulative;
+        private ChatResponse template;
+        private ScheduledFuture<?> scheduledFlush;
+        private int deltaSeq;
+        private int received;
+        private int published;
+
+        private Batch(Consumer<StreamFrame> frames, Consumer<ChatResponse> responses) {
+            this.frames = frames;
+            this.responses = responses;
+        }
+
+        @Override
+        public synchronized void accept(ChatResponse response) {
+            received++;
+            String answer = response.answer() != null ? response.answer() : "";
+
+            if (answer.startsWith(DELTA_PREFIX)) {
+                int end = answer.indexOf("] ", DELTA_PREFIX.length());
+                pendingDelta.append(answer, end + 2, answer.length());
+            } else if (answer.startsWith(THINKING_PREFIX)) {
+                pendingThinking.append(answer, THINKING_PREFIX.length(), answer.length());
+            } else if (answer.startsWith(PARTIAL_PREFIX)) {
+                pendingCumulative = answer.substring(PARTIAL_PREFIX.length());
+            } else {
+                flush();
+                published++;
+                responses.accept(response);
+                return;
+            }
+
+            template = response;
+            if (flushIntervalMs <= 0 || pendingDelta.length() + pendingThinking.length() >= flushMaxChars) {
+                flush();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = flusher.schedule(this::flush, flushIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        public synchronized void flush() {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+            if (template == null) {
+                return;
+            }
+            if (!pendingThinking.isEmpty()) {
+                publish(StreamFrame.Kind.THINKING, 0, pendingThinking.toString());
+                pendingThinking.setLength(0);
+            }
+            if (!pendingDelta.isEmpty()) {
+                publish(StreamFrame.Kind.DELTA, deltaSeq++, pendingDelta.toString());
+                pendingDelta.setLength(0);
+            }
+            if (pendingCumulative != null) {
+                publish(StreamFrame.Kind.CUMULATIVE, 0, pendingCumulative);
+                pendingCumulative = null;
+            }
+            template = null;
+        }
+
+        @Override
+        public synchronized void close() {
+            flush();
+            logger.debug("Coalesced {} partial responses into {} published messages", received, published);
+        }
+
+        private void publish(StreamFrame.Kind kind, int seq, String text) {
+            published++;
+            frames.accept(new StreamFrame(template.requestId(), SessionKeys.of(template.sessionId()), kind, seq, text));
+        }
+    }
+}
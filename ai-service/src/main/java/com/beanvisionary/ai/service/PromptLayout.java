@@ -0,0 +1,90 @@
+package com.beanvisionary.ai.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Lays out the chat messages sent to Ollama for a query and its retrieved context.
+ *
+ * With {@code app.prompt.layout: prefix-stable} (the default) the system message starts with the
+ * static instructions, tool list and guidelines, identical for every request, and the context is
+ * appended after them. Together with the tool schemas that Ollama renders ahead of the messages,
+ * every request then shares the same leading tokens, and the model server can reuse their cached
+ * computation instead of re-reading them. {@code legacy} keeps the original prompt, with the
+ * context interpolated ahead of the tool list.
+ */
+@Component
+public class PromptLayout {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromptLayout.class);
+
+    static final String INSTRUCTIONS = """
+            You are a helpful AI assistant with access to various tools. Use the context given at the end of this message to answer questions when relevant.
+
+            AVAILABLE TOOLS:
+            1. checkSanctionsList - Use this when asked to check if a person is on a sanctions list
+            2. lookupOrder - Use this when asked about order status, order details, or order information
+            3. launchCampaign - Use this when asked to create or launch marketing campaigns
+
+            GUIDELINES:
+            - If the user asks about checking someone against a sanctions list, use the checkSanctionsList tool
+            - If the user asks about order status or order details, use the lookupOrder tool
+            - If the user asks about launching campaigns or marketing, use the launchCampaign tool
+            - If you need to use a tool, call it with the appropriate parameters
+            - If the question can be answered from the context without tools, answer directly
+            - Be helpful and provide clear, accurate responses
+            """;
+
+    private static final String LEGACY = """
+            You are a helpful AI assistant with access to various tools. Use the following context to answer questions when relevant:
+
+            CONTEXT:
+            %s
+
+            AVAILABLE TOOLS:
+            1. checkSanctionsList - Use this when asked to check if a person is on a sanctions list
+            2. lookupOrder - Use this when asked about order status, order details, or order information
+            3. launchCampaign - Use this when asked to create or launch marketing campaigns
+
+            GUIDELINES:
+            - If the user asks about checking someone against a sanctions list, use the checkSanctionsList tool
+            - If the user asks about order status or order details, use the lookupOrder tool
+            - If the user asks about launching campaigns or marketing, use the launchCampaign tool
+            - If you need to use a tool, call it with the appropriate parameters
+            - If the question can be answered from the context without tools, answer directly
+            - Be helpful and provide clear, accurate responses
+            """;
+
+    private final boolean prefixStable;
+
+    public PromptLayout(@Value("${app.prompt.layout:prefix-stable}") String layout) {
+        this.prefixStable = !"legacy".equalsIgnoreCase(layout);
+        logger.info("Prompt layout: {}", prefixStable ? "prefix-stable" : "legacy");
+    }
+
+    public List<Message> messages(String context, String query) {
+        return List.of(new SystemMessage(systemPrompt(context)), new UserMessage(query));
+    }
+
+    /**
+     * The part of the system prompt shared by every request: all of it up to the context in the
+     * prefix-stable layout, nothing in the legacy one.
+     */
+    public String staticPrefix() {
+        return prefixStable ? INSTRUCTIONS : "";
+    }
+
+    private String systemPrompt(String context) {
+        if (!prefixStable) {
+            return LEGACY.formatted(context);
+        }
+        return INSTRUCTIONS + "\nCONTEXT:\n" + context + "\n";
+    }
+}
@@ -0,0 +1,129 @@
+package com.beanvisionary.ai.service;
+
+import com.beanvisionary.common.ChatResponse;
+import com.beanvisionary.common.ToolCall;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact-match cache of generation outcomes: either the final answer or the tool call that was dispatched.
+ *
+ * The key is a SHA-256 hash of the whitespace-normalized query, the model name and the id and content
+ * hash of every retrieved document, so a change to any retrieved document produces a new key. Case is
+ * preserved because tool arguments are extracted from the query as written. Entries expire after
+ * {@code app.cache.prompt.ttl-ms}; beyond {@code app.cache.prompt.max-entries} the least recently used
+ * ({@code lru}) or oldest ({@code fifo}) entry is evicted, per {@code app.cache.prompt.eviction-policy}.
+ */
+@Component
+public class PromptResultCache {
+
+    /**
+     * A cached outcome; exactly one of answer and toolCall is set.
+     */
+    public record Outcome(ChatResponse answer, ToolCall toolCall) {}
+
+    private record Entry(Outcome outcome, long createdAtMs) {}
+
+    private final boolean enabled;
+    private final long ttlMs;
+    private final int maxEntries;
+    private final String modelName;
+    private final Map<String, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+
+    public PromptResultCache(
+            MeterRegistry meterRegistry,
+            @Value("${spring.ai.ollama.chat.options.model}") String modelName,
+            @Value("${app.cache.prompt.enabled:false}") boolean enabled,
+            @Value("${app.cache.prompt.ttl-ms:300000}") long ttlMs,
+            @Value("${app.cache.prompt.max-entries:10000}") int maxEntries,
+            @Value("${app.cache.prompt.eviction-policy:lru}") String evictionPolicy) {
+        this.enabled = enabled;
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+        this.modelName = modelName;
+        boolean accessOrder = !"fifo".equalsIgnoreCase(evictionPolicy);
+        this.entries = new LinkedHashMap<>(16, 0.75f, accessOrder) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > PromptResultCache.this.maxEntries) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = Counter.builder("ai.cache.prompt.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("ai.cache.prompt.requests").tag("result", "miss").register(meterRegistry);
+        this.sizeEvictions = Counter.builder("ai.cache.prompt.evictions").tag("cause", "size").register(meterRegistry);
+        this.expiredEvictions = Counter.builder("ai.cache.prompt.evictions").tag("cause", "expired").register(meterRegistry);
+        meterRegistry.gauge("ai.cache.prompt.size", entries, Map::size);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String key(String query, List<Document> documents) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(normalize(query).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(modelName.getBytes(StandardCharsets.UTF_8));
+            for (Document document : documents) {
+                digest.update((byte) 0);
+                digest.update(String.valueOf(document.getId()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) ':');
+                digest.update(contentHash(document.getText()));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public Outcome get(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.createdAtMs() > ttlMs) {
+                entries.remove(key);
+                expiredEvictions.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.outcome();
+        }
+    }
+
+    public void put(String key, Outcome outcome) {
+        synchronized (entries) {
+            entries.put(key, new Entry(outcome, System.currentTimeMillis()));
+        }
+    }
+
+    private static String normalize(String query) {
+        return query == null ? "" : query.strip().replaceAll("\\s+", " ");
+    }
+
+    private static byte[] contentHash(String text) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256").digest(String.valueOf(text).getBytes(StandardCharsets.UTF_8));
+    }
+}
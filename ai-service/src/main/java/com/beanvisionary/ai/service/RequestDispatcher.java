@@ -0,0 +1,147 @@
+package com.beanvisionary.ai.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs chat requests off the Kafka listener thread.
+ *
+ * In {@code concurrent} mode each request runs on a virtual thread, bounded by
+ * {@code app.dispatch.max-in-flight}. Requests sharing a session id are chained so they
+ * still run one after another in arrival order; a request takes its in-flight permit only
+ * when it starts, so requests queued behind a busy session hold none. The listener thread
+ * never blocks: once {@code app.dispatch.max-pending} requests are queued or running, the
+ * {@code ai.requests.v1} container is paused, so its consumers keep polling without
+ * receiving records, and it is resumed when half of them have finished. In {@code inline}
+ * mode the request runs on the calling thread, which matches the original
+ * single-conversation behaviour.
+ */
+@Component
+public class RequestDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestDispatcher.class);
+
+    /**
+     * Listener id of {@link AiConsumer}'s {@code ai.requests.v1} listener, paused for backpressure.
+     */
+    public static final String LISTENER_ID = "ai-service-requests";
+
+    private final boolean concurrent;
+    private final Semaphore inFlight;
+    private final int maxPending;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ObjectProvider<KafkaListenerEndpointRegistry> registry;
+    private final ExecutorService executor;
+    private final Map<String, CompletableFuture<Void>> sessionTails = new ConcurrentHashMap<>();
+    private boolean paused;
+
+    public RequestDispatcher(
+            ObjectProvider<KafkaListenerEndpointRegistry> registry,
+            @Value("${app.dispatch.mode:inline}") String mode,
+            @Value("${app.dispatch.max-in-flight:16}") int maxInFlight,
+            @Value("${app.dispatch.max-pending:64}") int maxPending) {
+        this.registry = registry;
+        this.concurrent = "concurrent".equalsIgnoreCase(mode);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxPending = Math.max(maxInFlight, maxPending);
+        this.executor = concurrent ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        logger.info("Request dispatch mode: {} (max in flight: {}, max pending: {})",
+                concurrent ? "concurrent" : "inline", maxInFlight, this.maxPending);
+    }
+
+    /**
+     * Runs a request and then invokes the completion callback, whether the request succeeded or not.
+     * In concurrent mode this returns at once and pauses the listener container when too many
+     * requests are pending.
+     *
+     * @param sessionId requests with the same session id run sequentially; null maps to "default"
+     * @param task the request work
+     * @param onComplete invoked once the task has finished, typically to acknowledge the record
+     */
+    public void dispatch(String sessionId, Runnable task, Runnable onComplete) {
+        if (!concurrent) {
+            try {
+                task.run();
+            } finally {
+                onComplete.run();
+            }
+            return;
+        }
+
+        if (pending.incrementAndGet() >= maxPending) {
+            setPaused(true);
+        }
+
+        String key = sessionId != null ? sessionId : "default";
+        CompletableFuture<Void> next = sessionTails.compute(key, (k, previous) -> {
+            CompletableFuture<Void> base = previous != null ? previous : CompletableFuture.completedFuture(null);
+            return base.handle((ignored, error) -> null).thenRunAsync(() -> {
+                boolean acquired = false;
+                try {
+                    inFlight.acquire();
+                    acquired = true;
+                    task.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logger.warn("Dispatched request for session {} interrupted before it started", k);
+                } catch (Exception e) {
+                    logger.error("Dispatched request failed for session {}", k, e);
+                } finally {
+                    if (acquired) {
+                        inFlight.release();
+                    }
+                    onComplete.run();
+                    if (pending.decrementAndGet() <= maxPending / 2) {
+                        setPaused(false);
+                    }
+                }
+            }, executor);
+        });
+        next.whenComplete((ignored, error) -> sessionTails.remove(key, next));
+    }
+
+    private synchronized void setPaused(boolean pause) {
+        if (paused == pause) {
+            return;
+        }
+        MessageListenerContainer container = registry.getObject().getListenerContainer(LISTENER_ID);
+        if (container == null) {
+            return;
+        }
+        if (pause) {
+            logger.info("{} requests pending, pausing {}", pending.get(), LISTENER_ID);
+            container.pause();
+        } else {
+            logger.info("{} requests pending, resuming {}", pending.get(), LISTENER_ID);
+            container.resume();
+        }
+        paused = pause;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("Dispatched requests still running at shutdown; their offsets will not be committed");
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.beanvisionary.ai.service;
+
+import com.beanvisionary.common.HybridSearch;
+import com.beanvisionary.common.LexicalIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Retrieves context documents for a query.
+ *
+ * With {@code app.retrieval.mode: hybrid} and a lexical index, queries naming an identifier that
+ * the index matches exactly are answered from the index without an embedding call; other queries
+ * fuse the lexical and vector rankings. The default {@code vector} mode is a plain similarity
+ * search.
+ */
+@Component
+public class Retriever {
+
+    private final HybridSearch search;
+    private final HybridSearch.Mode mode;
+    private final int topK;
+    private final Counter lexicalOnly;
+    private final Counter embedded;
+
+    public Retriever(
+            VectorStore vectorStore,
+            ObjectProvider<LexicalIndex> lexicalIndex,
+            MeterRegistry meterRegistry,
+            @Value("${app.retrieval.mode:vector}") String mode,
+            @Value("${app.retrieval.top-k:4}") int topK,
+            @Value("${app.lexical.rrf-k:60}") int rrfK) {
+        this.search = new HybridSearch(vectorStore, lexicalIndex.getIfAvailable(), rrfK);
+        this.mode = HybridSearch.Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        this.topK = topK;
+        this.lexicalOnly = Counter.builder("ai.retrieval.requests").tag("path", "lexical").register(meterRegistry);
+        this.embedded = Counter.builder("ai.retrieval.requests").tag("path", "vector").register(meterRegistry);
+    }
+
+    public List<Document> retrieve(String query) {
+        HybridSearch.Result result = search.search(SearchRequest.builder().query(query).topK(topK).build(), mode);
+        (result.embedded() ? embedded : lexicalOnly).increment();
+        return result.documents();
+    }
+}
@@ -0,0 +1,169 @@
+package com.beanvisionary.ai.service;
+
+import com.beanvisionary.common.ChatResponse;
+import com.beanvisionary.common.VectorMath;
+import com.beanvisionary.common.VectorStoreChanged;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.beanvisionary.common.KafkaTopics.VECTOR_STORE_CHANGES;
+
+/**
+ * Opt-in cache of final answers keyed on the embedding of the query.
+ *
+ * A query whose embedding has a cosine similarity of at least {@code app.cache.semantic.similarity-threshold}
+ * with a cached query is answered from the cache without retrieval or generation. Entries expire after
+ * {@code app.cache.semantic.ttl-ms}, the least recently used entry is evicted beyond
+ * {@code app.cache.semantic.max-entries}, and the whole cache is cleared whenever vector-service reports
+ * a write to the vector store.
+ */
+@Component
+public class SemanticResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SemanticResponseCache.class);
+
+    private final EmbeddingModel embeddingModel;
+    private final boolean enabled;
+    private final double similarityThreshold;
+    private final long ttlMs;
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+    private final DistributionSummary savedMs;
+    private final AtomicLong averageMissLatencyMs = new AtomicLong();
+    private final Map<Long, Entry> entries;
+    private long nextKey;
+    private long generation;
+
+    /**
+     * A cache lookup: the normalized query embedding, plus the cached answer on a hit.
+     */
+    public record Lookup(float[] embedding, ChatResponse cached, long startedAtMs, long generation) {
+        public boolean hit() {
+            return cached != null;
+        }
+    }
+
+    private record Entry(float[] embedding, ChatResponse response, long createdAtMs) {}
+
+    public SemanticResponseCache(
+            EmbeddingModel embeddingModel,
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.semantic.enabled:false}") boolean enabled,
+            @Value("${app.cache.semantic.similarity-threshold:0.95}") double similarityThreshold,
+            @Value("${app.cache.semantic.ttl-ms:600000}") long ttlMs,
+            @Value("${app.cache.semantic.max-entries:1000}") int maxEntries) {
+        this.embeddingModel = embeddingModel;
+        this.enabled = enabled;
+        this.similarityThreshold = similarityThreshold;
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.hits = Counter.builder("ai.cache.semantic.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("ai.cache.semantic.requests").tag("result", "miss").register(meterRegistry);
+        this.savedMs = DistributionSummary.builder("ai.cache.semantic.latency.saved")
+                .baseUnit("milliseconds")
+                .description("Estimated generation time avoided by semantic cache hits")
+                .register(meterRegistry);
+        meterRegistry.gauge("ai.cache.semantic.size", entries, Map::size);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Embeds the query and looks for a cached answer to a sufficiently similar query.
+     */
+    public Lookup lookup(String query) {
+        float[] embedding = VectorMath.normalize(embeddingModel.embed(query));
+        long now = System.currentTimeMillis();
+        ChatResponse best = null;
+        double bestScore = similarityThreshold;
+        long currentGeneration;
+
+        synchronized (entries) {
+            currentGeneration = generation;
+            Iterator<Map.Entry<Long, Entry>> it = entries.entrySet().iterator();
+            Long bestKey = null;
+            while (it.hasNext()) {
+                Map.Entry<Long, Entry> e = it.next();
+                if (now - e.getValue().createdAtMs() > ttlMs) {
+                    it.remove();
+                    continue;
+                }
+                double score = dot(embedding, e.getValue().embedding());
+                if (score >= bestScore) {
+                    bestScore = score;
+                    best = e.getValue().response();
+                    bestKey = e.getKey();
+                }
+            }
+            if (bestKey != null) {
+                entries.get(bestKey);
+            }
+        }
+
+        if (best != null) {
+            hits.increment();
+            savedMs.record(averageMissLatencyMs.get());
+            logger.info("Semantic cache hit (similarity {})", String.format("%.3f", bestScore));
+        } else {
+            misses.increment();
+        }
+        return new Lookup(embedding, best, now, currentGeneration);
+    }
+
+    /**
+     * Stores the final answer produced for a missed lookup, unless the cache was invalidated since.
+     */
+    public void put(Lookup lookup, ChatResponse response) {
+        long latency = System.currentTimeMillis() - lookup.startedAtMs();
+        averageMissLatencyMs.updateAndGet(avg -> avg == 0 ? latency : (avg * 7 + latency) / 8);
+
+        synchronized (entries) {
+            if (lookup.generation() != generation) {
+                return;
+            }
+            entries.put(nextKey++, new Entry(lookup.embedding(), response, System.currentTimeMillis()));
+            Iterator<Long> it = entries.keySet().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    public void invalidate() {
+        synchronized (entries) {
+            entries.clear();
+            generation++;
+        }
+    }
+
+    @KafkaListener(topics = VECTOR_STORE_CHANGES, groupId = "ai-service-cache-${random.uuid}",
+            autoStartup = "${app.cache.semantic.enabled:false}", properties = "auto.offset.reset=latest")
+    public void onVectorStoreChanged(VectorStoreChanged change) {
+        invalidate();
+        logger.info("Semantic cache cleared after {} documents were written to {}", change.documentCount(), change.collection());
+    }
+
+    private static double dot(float[] a, float[] b) {
+        if (a.length != b.length) return -1;
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+}
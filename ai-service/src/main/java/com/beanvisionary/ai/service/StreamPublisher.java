@@ -0,0 +1,91 @@
+package com.beanvisionary.ai.service;
+
+import com.beanvisionary.common.ChatResponse;
+import com.beanvisionary.common.SessionKeys;
+import com.beanvisionary.common.StreamFrame;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static com.beanvisionary.common.KafkaTopics.AI_STREAM;
+import static com.beanvisionary.ai.service.PartialResponseBatcher.DELTA_PREFIX;
+import static com.beanvisionary.ai.service.PartialResponseBatcher.PARTIAL_PREFIX;
+import static com.beanvisionary.ai.service.PartialResponseBatcher.THINKING_PREFIX;
+
+/**
+ * Publishes the responses of a streamed answer.
+ *
+ * With {@code app.streaming.dedicated-topic} (the default) partial responses are sent to
+ * {@code ai.stream.v1} as {@link StreamFrame}s, which carry only request, session, kind, sequence
+ * and text. They use their own producer, tuned for latency rather than durability
+ * ({@code app.kafka.stream.acks}, {@code linger-ms}; no idempotence), and the topic keeps them
+ * only briefly. {@code ai.responses.v1} then holds just final answers and errors. Without it,
+ * partials go to {@code ai.responses.v1} as before, as {@link ChatResponse}s whose answer is tagged
+ * {@code [partial][delta:<seq>] }, {@code [partial][thinking] } or {@code [partial] }.
+ */
+@Component
+public class StreamPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamPublisher.class);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final KafkaTemplate<Object, Object> streamTemplate;
+    private final String responsesTopic;
+    private final boolean dedicatedTopic;
+
+    public StreamPublisher(
+            KafkaTemplate<String, Object> kafkaTemplate,
+            ProducerFactory<Object, Object> producerFactory,
+            @Value("${spring.kafka.template.default-topic}") String responsesTopic,
+            @Value("${app.streaming.dedicated-topic:true}") boolean dedicatedTopic,
+            @Value("${app.kafka.stream.acks:1}") String acks,
+            @Value("${app.kafka.stream.linger-ms:0}") int lingerMs) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.responsesTopic = responsesTopic;
+        this.dedicatedTopic = dedicatedTopic;
+        this.streamTemplate = dedicatedTopic
+                ? new KafkaTemplate<>(producerFactory, Map.of(
+                        ProducerConfig.ACKS_CONFIG, acks,
+                        ProducerConfig.LINGER_MS_CONFIG, lingerMs,
+                        ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false))
+                : null;
+        logger.info("Partial responses are published to {}", dedicatedTopic ? AI_STREAM : responsesTopic);
+    }
+
+    /**
+     * Publishes a final answer or error to {@code ai.responses.v1}.
+     */
+    public void publish(ChatResponse response) {
+        kafkaTemplate.send(responsesTopic, SessionKeys.of(response.sessionId()), response);
+    }
+
+    /**
+     * Publishes a partial response.
+     *
+     * @param userId the user the answer is for, carried only by the tagged responses of the legacy path
+     */
+    public void publish(StreamFrame frame, String userId) {
+        if (dedicatedTopic) {
+            streamTemplate.send(AI_STREAM, frame.sessionId(), frame);
+        } else {
+            kafkaTemplate.send(responsesTopic, frame.sessionId(), new ChatResponse(frame.requestId(), userId,
+                    frame.sessionId(), tagged(frame), List.of(), List.of(), Instant.now()));
+        }
+    }
+
+    private static String tagged(StreamFrame frame) {
+        return switch (frame.kind()) {
+            case DELTA -> DELTA_PREFIX + frame.seq() + "] " + frame.text();
+            case THINKING -> THINKING_PREFIX + frame.text();
+            case CUMULATIVE -> PARTIAL_PREFIX + frame.text();
+        };
+    }
+}
@@ -0,0 +1,156 @@
+package com.beanvisionary.ai.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.beanvisionary.common.KafkaTopics.AI_TOOL_STATE;
+
+/**
+ * State of requests waiting for tool results: who asked, and the score of the best result
+ * answered so far.
+ *
+ * Entries live in a local map, keyed by requestId, so reads never leave the process. With
+ * {@code app.tools.state.replicated} (the default) every change is also written to the compacted
+ * {@code ai.tool.state.v1} topic, keyed and partitioned by requestId, and every instance reads
+ * partitions {@code 0} to {@code app.kafka.partitions - 1} from the beginning into the map, so a
+ * restarted instance recovers the in-flight requests. Changes are applied only if newer than the
+ * entry they replace, so an instance's own writes coming back through the topic do not undo later
+ * local changes.
+ *
+ * The replicas are eventually consistent: a tool result handled by a different replica than the
+ * one that sent the tool call may arrive before that replica's context record has been applied.
+ * The result is then answered without the user, and two replicas can each accept a result for the
+ * same request.
+ */
+@Component
+public class ToolRequestStateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolRequestStateStore.class);
+
+    /**
+     * @param userId The user of the request
+     * @param sessionId The session to answer in
+     * @param bestScore Score of the result answered so far, null until one has been answered
+     * @param updatedAt When the entry was last changed, in epoch milliseconds
+     */
+    public record Entry(String userId, String sessionId, Double bestScore, long updatedAt) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean replicated;
+    private final long expirationTimeMs;
+
+    public ToolRequestStateStore(
+            KafkaTemplate<String, Object> kafkaTemplate,
+            ObjectMapper kafkaObjectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.tools.state.replicated:true}") boolean replicated,
+            @Value("${app.cleanup.expiration-time-ms:3600000}") long expirationTimeMs) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = kafkaObjectMapper;
+        this.replicated = replicated;
+        this.expirationTimeMs = expirationTimeMs;
+        Gauge.builder("ai.tool.state.entries", entries, Map::size).register(meterRegistry);
+        logger.info("Tool request state is {}", replicated ? "replicated through " + AI_TOOL_STATE : "local");
+    }
+
+    public Entry get(String requestId) {
+        return entries.get(requestId);
+    }
+
+    public void storeContext(String requestId, String userId, String sessionId) {
+        Entry entry = entries.compute(requestId, (id, existing) -> new Entry(userId, sessionId,
+                existing != null ? existing.bestScore() : null, nextVersion(existing)));
+        publish(requestId, entry);
+    }
+
+    /**
+     * Records {@code score} as the request's best result if it beats the current one, atomically.
+     *
+     * @return whether the result should be answered
+     */
+    public boolean offerScore(String requestId, double score, String fallbackSessionId) {
+        boolean[] accepted = new boolean[1];
+        Entry entry = entries.compute(requestId, (id, existing) -> {
+            if (existing == null) {
+                accepted[0] = true;
+                return new Entry(null, fallbackSessionId, score, nextVersion(null));
+            }
+            if (existing.bestScore() != null && score <= existing.bestScore()) {
+                logger.info("Comparing results for {}: existing score {} vs new score {} -> SKIP",
+                        requestId, existing.bestScore(), score);
+                return existing;
+            }
+            accepted[0] = true;
+            return new Entry(existing.userId(), existing.sessionId(), score, nextVersion(existing));
+        });
+        if (accepted[0]) {
+            publish(requestId, entry);
+        }
+        return accepted[0];
+    }
+
+    /**
+     * Drops entries not changed within the expiration time. Every instance applies the same rule;
+     * the topic deletes them by retention.
+     */
+    public int removeExpired() {
+        long threshold = System.currentTimeMillis() - expirationTimeMs;
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.updatedAt() < threshold);
+        return before - entries.size();
+    }
+
+    @KafkaListener(id = "ai-service-tool-state", groupId = "ai-service-tool-state",
+            autoStartup = "${app.tools.state.replicated:true}",
+            topicPartitions = @TopicPartition(topic = AI_TOOL_STATE,
+                    partitions = "0-#{${app.kafka.partitions:6} - 1}",
+                    partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0")))
+    public void apply(ConsumerRecord<String, Object> record) {
+        if (record.key() == null) {
+            return;
+        }
+        if (record.value() == null) {
+            entries.remove(record.key());
+            return;
+        }
+        try {
+            Entry incoming = objectMapper.readValue(record.value().toString(), Entry.class);
+            if (incoming.updatedAt() < System.currentTimeMillis() - expirationTimeMs) {
+                return;
+            }
+            entries.merge(record.key(), incoming,
+                    (existing, update) -> update.updatedAt() > existing.updatedAt() ? update : existing);
+        } catch (Exception e) {
+            logger.warn("Skipping unreadable tool state for {}: {}", record.key(), e.getMessage());
+        }
+    }
+
+    private void publish(String requestId, Entry entry) {
+        if (replicated) {
+            kafkaTemplate.send(AI_TOOL_STATE, requestId, entry);
+        }
+    }
+
+    /**
+     * A timestamp later than the one it replaces, so versions stay ordered within a millisecond.
+     */
+    private static long nextVersion(Entry existing) {
+        long now = System.currentTimeMillis();
+        return existing != null ? Math.max(now, existing.updatedAt() + 1) : now;
+    }
+}
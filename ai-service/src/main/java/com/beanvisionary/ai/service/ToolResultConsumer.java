@@ -1,11 +1,11 @@
 package com.beanvisionary.ai.service;
 
 import com.beanvisionary.common.ChatResponse;
+import com.beanvisionary.common.SessionKeys;
 import com.beanvisionary.common.ToolCall;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -14,8 +14,6 @@ import org.springframework.stereotype.Component;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import static com.beanvisionary.common.KafkaTopics.AI_RESPONSES;
 import static com.beanvisionary.common.KafkaTopics.AI_TOOL_RESULTS;
@@ -31,53 +29,38 @@ public class ToolResultConsumer {
     private static final String SANCTIONS_NO_MATCH_TEMPLATE = 
             "**NO SANCTIONS MATCH**: Customer is not on any sanctions list (Rule: %s, Confidence: %.0f%%). " +
             "Transaction may proceed.";
+
+    private static final String TOOL_FAILED_TEMPLATE =
+            "Tool %s could not be executed (%s). Please try again later.";
     
-    private final long cleanupIntervalMs;
-    private final long expirationTimeMs;
     private final ChatClient chat;
     private final KafkaTemplate<String, ChatResponse> producer;
-    
-    private final Map<String, ProcessedRequestEntry> processedRequests = new ConcurrentHashMap<>();
-    
-    private final Map<String, RequestContextEntry> requestContext = new ConcurrentHashMap<>();
+    private final ToolRequestStateStore stateStore;
 
     public ToolResultConsumer(
             ChatClient chat, 
             KafkaTemplate<String, ChatResponse> producer,
-            @Value("${app.cleanup.interval-ms:300000}") long cleanupIntervalMs,
-            @Value("${app.cleanup.expiration-time-ms:3600000}") long expirationTimeMs) {
+            ToolRequestStateStore stateStore) {
         this.chat = chat;
         this.producer = producer;
-        this.cleanupIntervalMs = cleanupIntervalMs;
-        this.expirationTimeMs = expirationTimeMs;
+        this.stateStore = stateStore;
     }
     
-    private record ProcessedRequestEntry(Map<String, Object> result, long timestamp) {}
-    private record RequestContextEntry(String userId, String sessionId, long timestamp) {}
-    
     public void storeRequestContext(String requestId, String userId, String sessionId) {
-        requestContext.put(requestId, new RequestContextEntry(userId, sessionId, System.currentTimeMillis()));
+        stateStore.storeContext(requestId, userId, sessionId);
         logger.info("Stored context for request {}: userId={}, sessionId={}", requestId, userId, sessionId);
     }
 
     @Scheduled(fixedRateString = "${app.cleanup.interval-ms:300000}")
     public void cleanupExpiredEntries() {
-        long currentTime = System.currentTimeMillis();
-        long expirationThreshold = currentTime - expirationTimeMs;
-        
-        boolean processedRemoved = processedRequests.entrySet().removeIf(entry -> 
-            entry.getValue().timestamp() < expirationThreshold);
-        
-        boolean contextRemoved = requestContext.entrySet().removeIf(entry -> 
-            entry.getValue().timestamp() < expirationThreshold);
-        
-        if (processedRemoved || contextRemoved) {
-            logger.info("Cleanup completed: removed expired entries from maps (processedRequests: {}, requestContext: {})", 
-                       processedRemoved ? "yes" : "no", contextRemoved ? "yes" : "no");
+        int removed = stateStore.removeExpired();
+        if (removed > 0) {
+            logger.info("Cleanup completed: removed {} expired tool request entries", removed);
         }
     }
 
-    @KafkaListener(topics = AI_TOOL_RESULTS, groupId = "ai-service")
+    @KafkaListener(topics = AI_TOOL_RESULTS, groupId = "ai-service",
+            concurrency = "${app.kafka.concurrency:${app.kafka.partitions:6}}")
     public void handle(Map<String, Object> msg) {
         logger.info("Received tool result: {}", msg);
         
@@ -91,13 +74,16 @@ public class ToolResultConsumer {
             String toolName  = (String) msg.get("tool");
             Map<String, Object> args = (Map<String, Object>) msg.get("args");
             Map<String, Object> result = (Map<String, Object>) msg.get("result");
+            String error = (String) msg.get("error");
             
             if (requestId == null) {
                 logger.warn("Received message with null requestId: {}", msg);
                 return;
             }
             
-            if (shouldProcessResult(requestId, result)) {
+            // a failed call answers the request unless a real result already has, and never outranks one
+            double score = error != null ? -1.0 : getScore(result);
+            if (stateStore.offerScore(requestId, score, (String) msg.get("sessionId"))) {
                 logger.info("Processing tool result for request {} with tool {}", requestId, toolName);
                 
                 String resultJson = "null";
@@ -110,13 +96,16 @@ public class ToolResultConsumer {
 
                 logger.info("Formatted tool result: {}", resultJson);
 
-                String finalAnswer = generateDeterministicResponse(toolName, result);
+                String finalAnswer = error != null
+                        ? String.format(TOOL_FAILED_TEMPLATE, toolName != null ? toolName : "unknown", error)
+                        : generateDeterministicResponse(toolName, result);
 
                 logger.info("Generated final answer for request {}: {}", requestId, finalAnswer);
 
-                RequestContextEntry contextEntry = requestContext.get(requestId);
+                ToolRequestStateStore.Entry contextEntry = stateStore.get(requestId);
                 String userId = contextEntry != null ? contextEntry.userId() : "user-1";
-                String sessionId = contextEntry != null ? contextEntry.sessionId() : "session-1";
+                String sessionId = contextEntry != null && contextEntry.sessionId() != null
+                        ? contextEntry.sessionId() : (String) msg.getOrDefault("sessionId", "session-1");
                 
                 if (userId == null) userId = "user-1";
                 if (sessionId == null) sessionId = "session-1";
@@ -126,12 +115,8 @@ public class ToolResultConsumer {
                 ChatResponse response = new ChatResponse(requestId, userId, sessionId,
                         finalAnswer, List.of(new ToolCall(toolName, args != null ? args : Map.of())), List.of(), Instant.now());
                 
-                producer.send(AI_RESPONSES, response);
+                producer.send(AI_RESPONSES, SessionKeys.of(sessionId), response);
                 logger.info("Sent final response to Kafka for request {}", requestId);
-                
-                requestContext.remove(requestId);
-                
-                processedRequests.put(requestId, new ProcessedRequestEntry(result, System.currentTimeMillis()));
             } else {
                 logger.info("Skipping tool result for request {} (already have better result)", requestId);
             }
@@ -141,25 +126,10 @@ public class ToolResultConsumer {
         }
     }
     
-    private boolean shouldProcessResult(String requestId, Map<String, Object> newResult) {
-        ProcessedRequestEntry existingEntry = processedRequests.get(requestId);
-        
-        if (existingEntry == null) {
-            return true;
-        }
-        
-        Map<String, Object> existingResult = existingEntry.result();
-        double existingScore = getScore(existingResult);
-        double newScore = getScore(newResult);
-        
-        boolean shouldProcess = newScore > existingScore;
-        logger.info("Comparing results for {}: existing score {} vs new score {} -> {}", 
-            requestId, existingScore, newScore, shouldProcess ? "PROCESS" : "SKIP");
-            
-        return shouldProcess;
-    }
-    
     private double getScore(Map<String, Object> result) {
+        if (result == null) {
+            return 0.0;
+        }
         Object score = result.get("score");
         if (score instanceof Number) {
             return ((Number) score).doubleValue();
@@ -0,0 +1,116 @@
+package com.beanvisionary.ai.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the tool schemas offered to Ollama and the pre-serialized streaming request template.
+ *
+ * The model name, stream flag, {@code keep_alive} and tool schemas are serialized once into a byte
+ * prefix, so a request body only needs the {@code messages} array written after it. Sending
+ * {@code app.ollama.keep-alive} with every request keeps the model, and its cached prompt prefix,
+ * loaded between requests instead of Ollama's five-minute default. Schemas are loaded from
+ * {@code /tools/ollama-tools.json} at startup and can be replaced at runtime with {@link #refresh(List)}.
+ */
+@Component
+public class ToolSchemaRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolSchemaRegistry.class);
+    private static final String TOOLS_RESOURCE = "/tools/ollama-tools.json";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String modelName;
+    private final String keepAlive;
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(List<Map<String, Object>> tools, byte[] streamPrefix) {}
+
+    public ToolSchemaRegistry(
+            @Value("${spring.ai.ollama.chat.options.model}") String modelName,
+            @Value("${app.ollama.keep-alive:30m}") String keepAlive) {
+        this.modelName = modelName;
+        this.keepAlive = keepAlive;
+        refresh(loadTools());
+    }
+
+    /**
+     * Replaces the registered tool schemas and rebuilds the cached request template.
+     */
+    public synchronized void refresh(List<Map<String, Object>> tools) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write("{\"model\":".getBytes(StandardCharsets.UTF_8));
+            out.write(objectMapper.writeValueAsBytes(modelName));
+            out.write(",\"stream\":true,\"keep_alive\":".getBytes(StandardCharsets.UTF_8));
+            out.write(objectMapper.writeValueAsBytes(keepAlive));
+            out.write(",\"tools\":".getBytes(StandardCharsets.UTF_8));
+            out.write(objectMapper.writeValueAsBytes(tools));
+            out.write(",\"messages\":".getBytes(StandardCharsets.UTF_8));
+            this.snapshot = new Snapshot(List.copyOf(tools), out.toByteArray());
+            logger.info("Registered {} tool schemas ({} byte request template)", tools.size(), out.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize tool schemas", e);
+        }
+    }
+
+    public List<Map<String, Object>> tools() {
+        return snapshot.tools();
+    }
+
+    public String keepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Builds a non-streaming {@code /api/chat} body with the same model, tools and keep-alive as
+     * streaming requests that generates a single token, to load the model and prefill a prompt.
+     */
+    public Map<String, Object> warmupRequestBody(List<Map<String, Object>> messages) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("model", modelName);
+        body.put("stream", false);
+        body.put("keep_alive", keepAlive);
+        body.put("tools", snapshot.tools());
+        body.put("messages", messages);
+        body.put("options", Map.of("num_predict", 1));
+        return body;
+    }
+
+    /**
+     * Builds a streaming {@code /api/chat} body by splicing the messages into the cached template.
+     */
+    public byte[] streamRequestBody(List<Map<String, Object>> messages) {
+        byte[] prefix = snapshot.streamPrefix();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(prefix.length + 1024);
+            out.write(prefix);
+            objectMapper.writeValue(out, messages);
+            out.write('}');
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize chat messages", e);
+        }
+    }
+
+    private List<Map<String, Object>> loadTools() {
+        try (InputStream is = getClass().getResourceAsStream(TOOLS_RESOURCE)) {
+            if (is == null) throw new IllegalStateException("Missing resource: " + TOOLS_RESOURCE);
+            return objectMapper.readValue(is, new TypeReference<>() {});
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read tool schemas from " + TOOLS_RESOURCE, e);
+        }
+    }
+}
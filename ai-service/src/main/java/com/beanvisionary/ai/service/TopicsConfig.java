@@ -1,31 +1,85 @@
 package com.beanvisionary.ai.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.KafkaAdmin;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
 
+/**
+ * Creates the pipeline topics with {@code app.kafka.partitions} partitions each. Records are keyed
+ * by session id ({@link com.beanvisionary.common.SessionKeys}), so more partitions spread
+ * conversations over more consumers while each conversation stays on one partition. Kafka only
+ * ever adds partitions; raising the count remaps sessions to partitions once.
+ */
 @Configuration
 public class TopicsConfig {
 
+    private final int partitions;
+    private final int replicas;
+    private final long streamRetentionMs;
+    private final long toolStateRetentionMs;
+
+    public TopicsConfig(
+            @Value("${app.kafka.partitions:6}") int partitions,
+            @Value("${app.kafka.replication-factor:1}") int replicas,
+            @Value("${app.kafka.stream.retention-ms:600000}") long streamRetentionMs,
+            @Value("${app.cleanup.expiration-time-ms:3600000}") long toolStateRetentionMs) {
+        this.partitions = partitions;
+        this.replicas = replicas;
+        this.streamRetentionMs = streamRetentionMs;
+        this.toolStateRetentionMs = toolStateRetentionMs;
+    }
+
     @Bean
     public NewTopic aiRequestsTopic() {
-        return TopicBuilder.name("ai.requests.v1").partitions(1).replicas(1).build();
+        return TopicBuilder.name("ai.requests.v1").partitions(partitions).replicas(replicas).build();
     }
 
     @Bean
     public NewTopic aiResponsesTopic() {
-        return TopicBuilder.name("ai.responses.v1").partitions(1).replicas(1).build();
+        return TopicBuilder.name("ai.responses.v1").partitions(partitions).replicas(replicas).build();
+    }
+
+    /**
+     * Partial-response frames are only useful while the answer is being streamed. Segments roll
+     * as often as they expire, so old frames are actually deleted after the retention period.
+     */
+    @Bean
+    public NewTopic aiStreamTopic() {
+        return TopicBuilder.name("ai.stream.v1").partitions(partitions).replicas(replicas)
+                .config(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(streamRetentionMs))
+                .config(TopicConfig.SEGMENT_MS_CONFIG, String.valueOf(streamRetentionMs))
+                .build();
     }
 
     @Bean
     public NewTopic aiToolCallsTopic() {
-        return TopicBuilder.name("ai.tool.calls.v1").partitions(1).replicas(1).build();
+        return TopicBuilder.name("ai.tool.calls.v1").partitions(partitions).replicas(replicas).build();
     }
 
     @Bean
     public NewTopic aiToolResultsTopic() {
-        return TopicBuilder.name("ai.tool.results.v1").partitions(1).replicas(1).build();
+        return TopicBuilder.name("ai.tool.results.v1").partitions(partitions).replicas(replicas).build();
+    }
+
+    /**
+     * Changelog of {@link ToolRequestStateStore}, keyed by request id. Compaction keeps the latest
+     * state of each request and retention drops requests once they expire.
+     */
+    @Bean
+    public NewTopic aiToolStateTopic() {
+        return TopicBuilder.name("ai.tool.state.v1").partitions(partitions).replicas(replicas)
+                .config(TopicConfig.CLEANUP_POLICY_CONFIG,
+                        TopicConfig.CLEANUP_POLICY_COMPACT + "," + TopicConfig.CLEANUP_POLICY_DELETE)
+                .config(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(toolStateRetentionMs))
+                .build();
+    }
+
+    @Bean
+    public NewTopic vectorStoreChangesTopic() {
+        return TopicBuilder.name("ai.vectors.changes.v1").partitions(1).replicas(replicas).build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+package com.beanvisionary.ai.service;
+
+import com.beanvisionary.common.ToolCall;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fallback tool routing of one query: {@link IntentMatcher} with the shipped rules against the
+ * {@code contains()} chains and per-call {@link Pattern#compile} it replaced in
+ * {@link CustomOllamaService}. Queries cycle through each tool, near misses and unrelated text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntentMatcherBenchmark {
+
+    private static final String[] QUERIES = {
+            "Please check the sanctions list for customer John Smith",
+            "Is the person Maria Garcia on any sanction list?",
+            "Can you look up the status of order A12345?",
+            "Find order ID B99812 for me",
+            "Launch a marketing campaign for the spring sale",
+            "Check whether my order has shipped yet",
+            "What is the refund policy for damaged items delivered after the promised date?",
+            "Summarize the last quarterly report and highlight the main risks for the board",
+    };
+
+    private IntentMatcher matcher;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        matcher = new IntentMatcher(new ClassPathResource("tools/intent-rules.json"));
+    }
+
+    @Benchmark
+    public ToolCall matcher() {
+        return matcher.match(nextQuery());
+    }
+
+    @Benchmark
+    public ToolCall containsChain() {
+        return suggestToolForQuery(nextQuery());
+    }
+
+    private String nextQuery() {
+        return QUERIES[next++ % QUERIES.length];
+    }
+
+    private static ToolCall suggestToolForQuery(String query) {
+        if (query == null) return null;
+        String lowerQuery = query.toLowerCase();
+
+        if ((lowerQuery.contains("sanction") || lowerQuery.contains("check")) &&
+            (lowerQuery.contains("name") || lowerQuery.contains("person") || lowerQuery.contains("customer"))) {
+            String name = extractNameFromQuery(query);
+            if (name != null) {
+                return new ToolCall("checkSanctionsList", Map.of("name", name));
+            }
+        }
+
+        if ((lowerQuery.contains("order") || lowerQuery.contains("status")) &&
+            (lowerQuery.contains("look") || lowerQuery.contains("check") || lowerQuery.contains("find"))) {
+            String orderId = extractOrderIdFromQuery(query);
+            if (orderId != null) {
+                return new ToolCall("lookupOrder", Map.of("orderId", orderId));
+            }
+        }
+
+        if (lowerQuery.contains("campaign") || lowerQuery.contains("launch") || lowerQuery.contains("marketing")) {
+            return new ToolCall("launchCampaign", Map.of("budget", 500));
+        }
+
+        return null;
+    }
+
+    private static String extractNameFromQuery(String query) {
+        String[] patterns = {
+                "customer\\s+([A-Z][a-z]+\\s+[A-Z][a-z]+)",
+                "person\\s+([A-Z][a-z]+\\s+[A-Z][a-z]+)",
+                "([A-Z][a-z]+\\s+[A-Z][a-z]+)\\s+is",
+                "\\b([A-Z][a-z]+\\s+[A-Z][a-z]+)\\b"
+        };
+        for (String pattern : patterns) {
+            Matcher m = Pattern.compile(pattern).matcher(query);
+            if (m.find()) {
+                return m.group(1);
+            }
+        }
+        return null;
+    }
+
+    private static String extractOrderIdFromQuery(String query) {
+        String[] patterns = {
+                "order\\s+([A-Z]?\\d+[A-Z]*)",
+                "order\\s+ID\\s+([A-Z]?\\d+[A-Z]*)",
+                "\\b([A-Z]\\d{4,})\\b"
+        };
+        for (String pattern : patterns) {
+            Matcher m = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(query);
+            if (m.find()) {
+                return m.group(1);
+            }
+        }
+        return null;
+    }
+}
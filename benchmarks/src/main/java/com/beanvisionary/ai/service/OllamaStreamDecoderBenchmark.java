@@ -0,0 +1,104 @@
+package com.beanvisionary.ai.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding one streamed Ollama {@code /api/chat} response: {@link OllamaStreamDecoder} against the
+ * {@code readLine()} + {@code trim()} + {@code readTree()} loop it replaced in
+ * {@link CustomOllamaService}. The body has {@code chunks} content chunks, a few thinking chunks,
+ * and a final chunk with a tool call and the usual timing fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OllamaStreamDecoderBenchmark {
+
+    @Param({"500"})
+    int chunks;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < chunks; i++) {
+            ndjson.append("{\"model\":\"gpt-oss:120b-cloud\",\"created_at\":\"2025-10-06T10:15:30.123456Z\",");
+            if (i < 8) {
+                ndjson.append("\"thinking\":\"considering step ").append(i).append("\",");
+            }
+            ndjson.append("\"message\":{\"role\":\"assistant\",\"content\":\"token").append(i)
+                    .append(" \\\"quoted\\\" text \"},\"done\":false}\n");
+        }
+        ndjson.append("{\"model\":\"gpt-oss:120b-cloud\",\"created_at\":\"2025-10-06T10:15:31.000000Z\",")
+                .append("\"message\":{\"role\":\"assistant\",\"content\":\"\",\"tool_calls\":[{\"function\":")
+                .append("{\"name\":\"lookupOrder\",\"arguments\":{\"orderId\":\"A12345\"}}}]},")
+                .append("\"done\":true,\"done_reason\":\"stop\",\"total_duration\":1834512000,")
+                .append("\"load_duration\":21000000,\"prompt_eval_count\":412,\"eval_count\":").append(chunks)
+                .append(",\"eval_duration\":1700000000}\n");
+        body = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void decoder(Blackhole bh) throws IOException {
+        try (OllamaStreamDecoder decoder = new OllamaStreamDecoder(objectMapper, new ByteArrayInputStream(body))) {
+            while (decoder.next()) {
+                bh.consume(decoder.done());
+                if (decoder.thinking().length() > 0) {
+                    bh.consume(decoder.thinking().toString());
+                }
+                bh.consume(decoder.toolCalls());
+                if (decoder.content().length() > 0) {
+                    bh.consume(decoder.content().toString());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void treePerLine(Blackhole bh) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(line);
+                } catch (Exception parseEx) {
+                    continue;
+                }
+                bh.consume(node.path("done").asBoolean(false));
+                bh.consume(node.path("thinking").asText(null));
+                JsonNode messageNode = node.path("message");
+                if (messageNode.has("tool_calls")) {
+                    bh.consume(messageNode.path("tool_calls"));
+                }
+                bh.consume(messageNode.path("content").asText(""));
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.beanvisionary.common;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-k search over the in-process vector stores on the same seeded random vectors: the int8 flat
+ * scan with and without the Vector API, the HNSW graph, and an exact scan over heap float arrays
+ * as the baseline both are measured against.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VectorSearchBenchmark {
+
+    private static final String VECTOR_API = "--add-modules=jdk.incubator.vector";
+
+    private static final int QUERIES = 256;
+
+    @Param({"20000"})
+    int size;
+
+    @Param({"384"})
+    int dimensions;
+
+    @Param({"10"})
+    int topK;
+
+    private float[][] vectors;
+    private float[][] queries;
+    private SearchRequest[] requests;
+    private FlatVectorStore flat;
+    private HnswVectorStore hnsw;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        vectors = new float[size][];
+        List<Document> documents = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            vectors[i] = VectorMath.normalize(gaussian(random));
+            documents.add(Document.builder().id("doc-" + i).text("doc-" + i).build());
+        }
+        queries = new float[QUERIES][];
+        requests = new SearchRequest[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = VectorMath.normalize(gaussian(random));
+            requests[i] = SearchRequest.builder().query(Integer.toString(i)).topK(topK).build();
+        }
+
+        EmbeddingModel model = new QueryEmbeddings(queries);
+        List<float[]> embeddings = List.of(vectors);
+        flat = new FlatVectorStore(model, new FlatVectorStore.Options(4, 4096), null, false);
+        flat.add(documents, embeddings);
+        hnsw = new HnswVectorStore(model, new HnswVectorStore.Options(16, 200, 64), null, false);
+        hnsw.add(documents, embeddings);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        flat.close();
+        hnsw.close();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = VECTOR_API)
+    public List<Document> flat() {
+        return flat.similaritySearch(nextRequest());
+    }
+
+    @Benchmark
+    public List<Document> flatScalar() {
+        return flat.similaritySearch(nextRequest());
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = VECTOR_API)
+    public List<Document> hnsw() {
+        return hnsw.similaritySearch(nextRequest());
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = VECTOR_API)
+    public int[] exactScan() {
+        float[] query = queries[next++ & (QUERIES - 1)];
+        TopK top = new TopK(topK);
+        for (int i = 0; i < vectors.length; i++) {
+            float[] vector = vectors[i];
+            float score = 0;
+            for (int d = 0; d < vector.length; d++) {
+                score += vector[d] * query[d];
+            }
+            if (score > top.threshold()) {
+                top.offer(i, score);
+            }
+        }
+        return top.slots();
+    }
+
+    private SearchRequest nextRequest() {
+        return requests[next++ & (QUERIES - 1)];
+    }
+
+    private float[] gaussian(Random random) {
+        float[] v = new float[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            v[d] = (float) random.nextGaussian();
+        }
+        return v;
+    }
+
+    /**
+     * Resolves a query text, the index of a precomputed query vector, without an embedding call.
+     */
+    private record QueryEmbeddings(float[][] queries) implements EmbeddingModel {
+
+        @Override
+        public float[] embed(String text) {
+            return queries[Integer.parseInt(text)];
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            throw new UnsupportedOperationException("benchmark queries are precomputed");
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.beanvisionary.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link EmbeddingModel} decorator that caches embeddings by content hash.
+ *
+ * Each text is keyed by 128 bits of SHA-256 over the namespace (typically the embedding model name),
+ * the model and dimensions of the request's options when they override the defaults, and the text,
+ * and its vector is stored as a {@code float[]}. Only texts missing from the cache are sent to the
+ * delegate, in one request. Requests with provider-specific options, which may change the vectors
+ * in ways the key does not capture, bypass the cache. The cache is bounded by the bytes held in
+ * vectors and evicts the least recently used entry first. When a persist path is set, the cache is
+ * loaded from it at startup and written back on {@link #close()}. Lookups are counted as
+ * {@code embedding.cache.requests{result=hit|miss|bypass}}, one per text, and the number of cached
+ * vectors is reported as {@code embedding.cache.entries}.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingEmbeddingModel.class);
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    private static final int SNAPSHOT_MAGIC = 0x454D4231;
+    private static final Class<?> PLAIN_OPTIONS = EmbeddingOptionsBuilder.builder().build().getClass();
+
+    private record Key(long hi, long lo) {}
+
+    private final EmbeddingModel delegate;
+    private final byte[] namespace;
+    private final long maxBytes;
+    private final Path persistPath;
+    private final Map<Key, float[]> vectors = new LinkedHashMap<>(1024, 0.75f, true);
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bypassed;
+    private long usedBytes;
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, String namespace, long maxBytes, Path persistPath,
+                                 MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.namespace = namespace.getBytes(StandardCharsets.UTF_8);
+        this.maxBytes = maxBytes;
+        this.persistPath = persistPath;
+        this.hits = Counter.builder("embedding.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("embedding.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.bypassed = Counter.builder("embedding.cache.requests").tag("result", "bypass").register(meterRegistry);
+        Gauge.builder("embedding.cache.entries", this, CachingEmbeddingModel::size).register(meterRegistry);
+        if (persistPath != null && Files.exists(persistPath)) {
+            load();
+        }
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        EmbeddingOptions options = request.getOptions();
+        if (options != null && options.getClass() != PLAIN_OPTIONS) {
+            bypassed.increment(texts.size());
+            return delegate.call(request);
+        }
+        String model = options != null ? options.getModel() : null;
+        Integer dimensions = options != null ? options.getDimensions() : null;
+        float[][] results = new float[texts.size()][];
+        Key[] keys = new Key[texts.size()];
+        List<String> missingTexts = new ArrayList<>();
+        List<Integer> missingIndexes = new ArrayList<>();
+
+        synchronized (vectors) {
+            for (int i = 0; i < texts.size(); i++) {
+                keys[i] = key(model, dimensions, texts.get(i));
+                results[i] = vectors.get(keys[i]);
+                if (results[i] == null) {
+                    missingTexts.add(texts.get(i));
+                    missingIndexes.add(i);
+                }
+            }
+        }
+        hits.increment(texts.size() - missingTexts.size());
+        misses.increment(missingTexts.size());
+
+        if (!missingTexts.isEmpty()) {
+            EmbeddingResponse response = delegate.call(new EmbeddingRequest(missingTexts, request.getOptions()));
+            List<Embedding> computed = response.getResults();
+            synchronized (vectors) {
+                for (int j = 0; j < computed.size(); j++) {
+                    int index = missingIndexes.get(j);
+                    results[index] = computed.get(j).getOutput();
+                    store(keys[index], results[index]);
+                }
+            }
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            embeddings.add(new Embedding(results[i], i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    public int size() {
+        synchronized (vectors) {
+            return vectors.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (persistPath != null) {
+            save();
+        }
+    }
+
+    private void store(Key key, float[] vector) {
+        float[] previous = vectors.put(key, vector);
+        if (previous != null) {
+            usedBytes -= sizeOf(previous);
+        }
+        usedBytes += sizeOf(vector);
+        var it = vectors.values().iterator();
+        while (usedBytes > maxBytes && it.hasNext()) {
+            usedBytes -= sizeOf(it.next());
+            it.remove();
+        }
+    }
+
+    /**
+     * Texts embedded with the default options keep the key they had before options were part of it,
+     * so persisted caches stay valid.
+     */
+    private Key key(String model, Integer dimensions, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(namespace);
+            if (model == null && dimensions == null) {
+                digest.update((byte) 0);
+            } else {
+                digest.update((byte) 1);
+                digest.update(String.valueOf(model).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(String.valueOf(dimensions).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(String.valueOf(text).getBytes(StandardCharsets.UTF_8)));
+            return new Key(hash.getLong(), hash.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static long sizeOf(float[] vector) {
+        return (long) vector.length * Float.BYTES + ENTRY_OVERHEAD_BYTES;
+    }
+
+    private void load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(persistPath)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                logger.warn("Ignoring embedding cache snapshot with unknown format: {}", persistPath);
+                return;
+            }
+            int count = in.readInt();
+            synchronized (vectors) {
+                for (int i = 0; i < count; i++) {
+                    Key key = new Key(in.readLong(), in.readLong());
+                    float[] vector = new float[in.readInt()];
+                    for (int d = 0; d < vector.length; d++) {
+                        vector[d] = in.readFloat();
+                    }
+                    store(key, vector);
+                }
+            }
+            logger.info("Loaded {} cached embeddings from {}", vectors.size(), persistPath);
+        } catch (IOException e) {
+            logger.warn("Could not load embedding cache from {}: {}", persistPath, e.getMessage());
+        }
+    }
+
+    private void save() {
+        Path tmp = persistPath.resolveSibling(persistPath.getFileName() + ".tmp");
+        try {
+            if (persistPath.getParent() != null) {
+                Files.createDirectories(persistPath.getParent());
+            }
+            synchronized (vectors) {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    out.writeInt(SNAPSHOT_MAGIC);
+                    out.writeInt(vectors.size());
+                    for (Map.Entry<Key, float[]> e : vectors.entrySet()) {
+                        out.writeLong(e.getKey().hi());
+                        out.writeLong(e.getKey().lo());
+                        out.writeInt(e.getValue().length);
+                        for (float f : e.getValue()) {
+                            out.writeFloat(f);
+                        }
+                    }
+                }
+            }
+            Files.move(tmp, persistPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Saved {} cached embeddings to {}", size(), persistPath);
+        } catch (IOException e) {
+            logger.warn("Could not save embedding cache to {}: {}", persistPath, e.getMessage());
+        }
+    }
+}
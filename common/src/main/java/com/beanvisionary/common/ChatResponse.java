@@ -3,6 +3,13 @@ package com.beanvisionary.common;
 import java.time.Instant;
 import java.util.List;
 
+/**
+ * A final answer, or error, published to {@code ai.responses.v1}.
+ *
+ * Null {@code toolCalls} or {@code citations} are replaced by empty lists, so a response reads the
+ * same after a round trip through either event format: the binary format cannot tell an absent
+ * list from an empty one.
+ */
 public record ChatResponse(
         String requestId,
         String userId,
@@ -11,4 +18,9 @@ public record ChatResponse(
         List<ToolCall> toolCalls,
         List<String> citations,
         Instant ts
-) {}
+) {
+    public ChatResponse {
+        toolCalls = toolCalls != null ? toolCalls : List.of();
+        citations = citations != null ? citations : List.of();
+    }
+}
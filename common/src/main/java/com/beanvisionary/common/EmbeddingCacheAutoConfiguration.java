@@ -0,0 +1,40 @@
+package com.beanvisionary.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.ai.ollama.OllamaEmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.nio.file.Path;
+
+/**
+ * Wraps the Ollama embedding model of every service that has one in a {@link CachingEmbeddingModel},
+ * so repeated texts are embedded once. Being primary, it is the model the vector store and the
+ * services' own components pick up. Disabled with {@code app.embedding-cache.enabled: false}.
+ */
+@AutoConfiguration(afterName = "org.springframework.ai.model.ollama.autoconfigure.OllamaEmbeddingAutoConfiguration")
+@ConditionalOnClass(OllamaEmbeddingModel.class)
+@ConditionalOnBean(OllamaEmbeddingModel.class)
+@ConditionalOnProperty(name = "app.embedding-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class EmbeddingCacheAutoConfiguration {
+
+    @Bean
+    @Primary
+    public CachingEmbeddingModel cachingEmbeddingModel(
+            OllamaEmbeddingModel ollamaEmbeddingModel,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${spring.ai.ollama.embedding.options.model}") String modelName,
+            @Value("${app.embedding-cache.max-bytes:67108864}") long maxBytes,
+            @Value("${app.embedding-cache.persist-path:}") String persistPath) {
+        return new CachingEmbeddingModel(ollamaEmbeddingModel, modelName, maxBytes,
+                persistPath.isBlank() ? null : Path.of(persistPath),
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+}
@@ -0,0 +1,577 @@
+package com.beanvisionary.common;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.beanvisionary.common.KafkaTopics.AI_TOOL_CALLS;
+import static com.beanvisionary.common.KafkaTopics.AI_TOOL_RESULTS;
+
+/**
+ * Binary encoding of the chat pipeline events, version 1.
+ *
+ * The messages and field numbers are defined in {@code src/main/proto/events.proto} and written
+ * in the protobuf wire format with protobuf-java's coded streams, without generated classes, so
+ * the events stay the records and maps the services already use. Tool calls and tool results are
+ * maps on the wire today; they are encoded as the {@code ToolCallEvent} and
+ * {@code ToolResultEvent} envelopes, and free-form values (metadata, arguments, results) as
+ * {@code Struct}s that keep integral numbers integral.
+ */
+public final class EventCodec {
+    private EventCodec() {}
+
+    public static final String FORMAT_HEADER = "x-event-format";
+    public static final String TYPE_HEADER = "x-event-type";
+    public static final String BINARY_V1 = "binary-v1";
+
+    public enum Type {
+        CHAT_REQUEST("chat-request"),
+        CHAT_RESPONSE("chat-response"),
+        TOOL_CALL("tool-call"),
+        TOOL_RESULT("tool-result"),
+        STREAM_FRAME("stream-frame");
+
+        private final String header;
+
+        Type(String header) {
+            this.header = header;
+        }
+
+        public String header() {
+            return header;
+        }
+
+        public static Type fromHeader(String header) {
+            for (Type type : values()) {
+                if (type.header.equals(header)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown event type: " + header);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(CodedOutputStream out) throws IOException;
+    }
+
+    /**
+     * The binary event type of a value sent to {@code topic}, or null if it has none and has to
+     * be sent as JSON.
+     */
+    public static Type typeOf(String topic, Object value) {
+        if (value instanceof ChatRequest) {
+            return Type.CHAT_REQUEST;
+        }
+        if (value instanceof ChatResponse) {
+            return Type.CHAT_RESPONSE;
+        }
+        if (value instanceof StreamFrame) {
+            return Type.STREAM_FRAME;
+        }
+        if (value instanceof Map<?, ?>) {
+            if (AI_TOOL_CALLS.equals(topic)) {
+                return Type.TOOL_CALL;
+            }
+            if (AI_TOOL_RESULTS.equals(topic)) {
+                return Type.TOOL_RESULT;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Encodes an event into an array of exactly its size: nested message sizes are computed
+     * up front, so no intermediate buffers are built.
+     */
+    public static byte[] encode(Type type, Object value) {
+        return switch (type) {
+            case CHAT_REQUEST -> {
+                ChatRequest r = (ChatRequest) value;
+                yield encode(chatRequestSize(r), out -> writeChatRequest(out, r));
+            }
+            case CHAT_RESPONSE -> {
+                ChatResponse r = (ChatResponse) value;
+                yield encode(chatResponseSize(r), out -> writeChatResponse(out, r));
+            }
+            case TOOL_CALL -> {
+                Map<?, ?> m = (Map<?, ?>) value;
+                yield encode(toolCallEventSize(m), out -> writeToolCallEvent(out, m));
+            }
+            case TOOL_RESULT -> {
+                Map<?, ?> m = (Map<?, ?>) value;
+                yield encode(toolCallEventSize(m) + structSize(5, (Map<?, ?>) m.get("result")) + stringSize(6, (String) m.get("error")),
+                        out -> writeToolResultEvent(out, m));
+            }
+            case STREAM_FRAME -> {
+                StreamFrame f = (StreamFrame) value;
+                yield encode(streamFrameSize(f), out -> writeStreamFrame(out, f));
+            }
+        };
+    }
+
+    /**
+     * @return a {@link ChatRequest}, {@link ChatResponse} or {@link StreamFrame}, or for tool calls and results a map
+     *         with the same keys the JSON messages have
+     */
+    public static Object decode(Type type, byte[] data) throws IOException {
+        CodedInputStream in = CodedInputStream.newInstance(data);
+        return switch (type) {
+            case CHAT_REQUEST -> readChatRequest(in);
+            case CHAT_RESPONSE -> readChatResponse(in);
+            case TOOL_CALL -> readEnvelope(in, false);
+            case TOOL_RESULT -> readEnvelope(in, true);
+            case STREAM_FRAME -> readStreamFrame(in);
+        };
+    }
+
+    private static void writeChatRequest(CodedOutputStream out, ChatRequest r) throws IOException {
+        writeString(out, 1, r.requestId());
+        writeString(out, 2, r.userId());
+        writeString(out, 3, r.sessionId());
+        writeString(out, 4, r.query());
+        writeStruct(out, 5, r.metadata());
+        writeTimestamp(out, 6, r.ts());
+    }
+
+    private static ChatRequest readChatRequest(CodedInputStream in) throws IOException {
+        String requestId = null, userId = null, sessionId = null, query = null;
+        Map<String, Object> metadata = null;
+        Instant ts = null;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> requestId = in.readStringRequireUtf8();
+                case 2 -> userId = in.readStringRequireUtf8();
+                case 3 -> sessionId = in.readStringRequireUtf8();
+                case 4 -> query = in.readStringRequireUtf8();
+                case 5 -> metadata = readStruct(in);
+                case 6 -> ts = readTimestamp(in);
+                default -> in.skipField(tag);
+            }
+        }
+        return new ChatRequest(requestId, userId, sessionId, query, metadata, ts);
+    }
+
+    private static void writeChatResponse(CodedOutputStream out, ChatResponse r) throws IOException {
+        writeString(out, 1, r.requestId());
+        writeString(out, 2, r.userId());
+        writeString(out, 3, r.sessionId());
+        writeString(out, 4, r.answer());
+        if (r.toolCalls() != null) {
+            for (ToolCall call : r.toolCalls()) {
+                writeHeader(out, 5, toolCallSize(call));
+                writeString(out, 1, call.name());
+                writeStruct(out, 2, call.args());
+                writeString(out, 3, call.requestId());
+            }
+        }
+        if (r.citations() != null) {
+            for (String citation : r.citations()) {
+                out.writeString(6, citation);
+            }
+        }
+        writeTimestamp(out, 7, r.ts());
+    }
+
+    private static ChatResponse readChatResponse(CodedInputStream in) throws IOException {
+        String requestId = null, userId = null, sessionId = null, answer = null;
+        List<ToolCall> toolCalls = new ArrayList<>();
+        List<String> citations = new ArrayList<>();
+        Instant ts = null;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> requestId = in.readStringRequireUtf8();
+                case 2 -> userId = in.readStringRequireUtf8();
+                case 3 -> sessionId = in.readStringRequireUtf8();
+                case 4 -> answer = in.readStringRequireUtf8();
+                case 5 -> toolCalls.add(readToolCall(in));
+                case 6 -> citations.add(in.readStringRequireUtf8());
+                case 7 -> ts = readTimestamp(in);
+                default -> in.skipField(tag);
+            }
+        }
+        return new ChatResponse(requestId, userId, sessionId, answer, toolCalls, citations, ts);
+    }
+
+    private static ToolCall readToolCall(CodedInputStream in) throws IOException {
+        int limit = in.pushLimit(in.readRawVarint32());
+        String name = null, requestId = null;
+        Map<String, Object> args = null;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> name = in.readStringRequireUtf8();
+                case 2 -> args = readStruct(in);
+                case 3 -> requestId = in.readStringRequireUtf8();
+                default -> in.skipField(tag);
+            }
+        }
+        in.popLimit(limit);
+        return new ToolCall(name, args, requestId);
+    }
+
+    private static void writeStreamFrame(CodedOutputStream out, StreamFrame f) throws IOException {
+        writeString(out, 1, f.requestId());
+        writeString(out, 2, f.sessionId());
+        // proto3 scalars are left out when they hold their default, as generated code does
+        if (f.kind().ordinal() != 0) {
+            out.writeEnum(3, f.kind().ordinal());
+        }
+        if (f.seq() != 0) {
+            out.writeInt32(4, f.seq());
+        }
+        writeString(out, 5, f.text());
+    }
+
+    private static StreamFrame readStreamFrame(CodedInputStream in) throws IOException {
+        String requestId = null, sessionId = null, text = null;
+        StreamFrame.Kind kind = StreamFrame.Kind.DELTA;
+        int seq = 0;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> requestId = in.readStringRequireUtf8();
+                case 2 -> sessionId = in.readStringRequireUtf8();
+                case 3 -> {
+                    int k = in.readEnum();
+                    kind = k < StreamFrame.Kind.values().length ? StreamFrame.Kind.values()[k] : StreamFrame.Kind.DELTA;
+                }
+                case 4 -> seq = in.readInt32();
+                case 5 -> text = in.readStringRequireUtf8();
+                default -> in.skipField(tag);
+            }
+        }
+        return new StreamFrame(requestId, sessionId, kind, seq, text);
+    }
+
+    private static void writeToolCallEvent(CodedOutputStream out, Map<?, ?> m) throws IOException {
+        writeString(out, 1, (String) m.get("requestId"));
+        writeString(out, 2, (String) m.get("sessionId"));
+        writeString(out, 3, (String) m.get("tool"));
+        writeStruct(out, 4, (Map<?, ?>) m.get("args"));
+    }
+
+    private static void writeToolResultEvent(CodedOutputStream out, Map<?, ?> m) throws IOException {
+        writeToolCallEvent(out, m);
+        writeStruct(out, 5, (Map<?, ?>) m.get("result"));
+        writeString(out, 6, (String) m.get("error"));
+    }
+
+    private static Map<String, Object> readEnvelope(CodedInputStream in, boolean result) throws IOException {
+        Map<String, Object> m = new LinkedHashMap<>();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> m.put("requestId", in.readStringRequireUtf8());
+                case 2 -> m.put("sessionId", in.readStringRequireUtf8());
+                case 3 -> m.put("tool", in.readStringRequireUtf8());
+                case 4 -> m.put("args", readStruct(in));
+                case 5 -> {
+                    if (result) {
+                        m.put("result", readStruct(in));
+                    } else {
+                        in.skipField(tag);
+                    }
+                }
+                case 6 -> {
+                    if (result) {
+                        m.put("error", in.readStringRequireUtf8());
+                    } else {
+                        in.skipField(tag);
+                    }
+                }
+                default -> in.skipField(tag);
+            }
+        }
+        return m;
+    }
+
+    private static void writeTimestamp(CodedOutputStream out, int field, Instant ts) throws IOException {
+        if (ts != null) {
+            writeHeader(out, field, timestampSize(ts));
+            if (ts.getEpochSecond() != 0) {
+                out.writeInt64(1, ts.getEpochSecond());
+            }
+            if (ts.getNano() != 0) {
+                out.writeInt32(2, ts.getNano());
+            }
+        }
+    }
+
+    private static Instant readTimestamp(CodedInputStream in) throws IOException {
+        int limit = in.pushLimit(in.readRawVarint32());
+        long seconds = 0;
+        int nanos = 0;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> seconds = in.readInt64();
+                case 2 -> nanos = in.readInt32();
+                default -> in.skipField(tag);
+            }
+        }
+        in.popLimit(limit);
+        return Instant.ofEpochSecond(seconds, nanos);
+    }
+
+    private static void writeStruct(CodedOutputStream out, int field, Map<?, ?> map) throws IOException {
+        if (map != null) {
+            writeHeader(out, field, structBodySize(map));
+            writeFields(out, map);
+        }
+    }
+
+    private static void writeFields(CodedOutputStream out, Map<?, ?> map) throws IOException {
+        for (Map.Entry<?, ?> e : map.entrySet()) {
+            String key = String.valueOf(e.getKey());
+            Object value = normalize(e.getValue());
+            int valueSize = valueBodySize(value);
+            writeHeader(out, 1, keySize(key) + messageSize(2, valueSize));
+            if (!key.isEmpty()) {
+                out.writeString(1, key);
+            }
+            writeHeader(out, 2, valueSize);
+            writeValue(out, value);
+        }
+    }
+
+    /**
+     * Writes the body of a {@code Value} holding a {@link #normalize normalized} value.
+     */
+    private static void writeValue(CodedOutputStream out, Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeBool(1, true);
+            case Boolean b -> out.writeBool(5, b);
+            case Number n when isIntegral(n) -> out.writeSInt64(3, n.longValue());
+            case Number n -> out.writeDouble(2, n.doubleValue());
+            case String s -> out.writeString(4, s);
+            case Map<?, ?> m -> {
+                writeHeader(out, 6, structBodySize(m));
+                writeFields(out, m);
+            }
+            case Collection<?> c -> {
+                writeHeader(out, 7, listBodySize(c));
+                for (Object item : c) {
+                    Object v = normalize(item);
+                    writeHeader(out, 1, valueBodySize(v));
+                    writeValue(out, v);
+                }
+            }
+            default -> throw new IllegalStateException("Not normalized: " + value.getClass());
+        }
+    }
+
+    private static Object normalize(Object value) {
+        return switch (value) {
+            case null -> null;
+            case Boolean b -> b;
+            case Number n -> n;
+            case String s -> s;
+            case Map<?, ?> m -> m;
+            case Collection<?> c -> c;
+            case Object[] a -> Arrays.asList(a);
+            default -> value.toString();
+        };
+    }
+
+    private static boolean isIntegral(Number n) {
+        return n instanceof Integer || n instanceof Long || n instanceof Short || n instanceof Byte
+                || n instanceof BigInteger b && b.bitLength() < 64;
+    }
+
+    private static int chatRequestSize(ChatRequest r) {
+        return stringSize(1, r.requestId()) + stringSize(2, r.userId()) + stringSize(3, r.sessionId())
+                + stringSize(4, r.query()) + structSize(5, r.metadata()) + timestampFieldSize(6, r.ts());
+    }
+
+    private static int chatResponseSize(ChatResponse r) {
+        int size = stringSize(1, r.requestId()) + stringSize(2, r.userId()) + stringSize(3, r.sessionId())
+                + stringSize(4, r.answer()) + timestampFieldSize(7, r.ts());
+        if (r.toolCalls() != null) {
+            for (ToolCall call : r.toolCalls()) {
+                size += messageSize(5, toolCallSize(call));
+            }
+        }
+        if (r.citations() != null) {
+            for (String citation : r.citations()) {
+                size += CodedOutputStream.computeStringSize(6, citation);
+            }
+        }
+        return size;
+    }
+
+    private static int streamFrameSize(StreamFrame f) {
+        return stringSize(1, f.requestId()) + stringSize(2, f.sessionId())
+                + (f.kind().ordinal() != 0 ? CodedOutputStream.computeEnumSize(3, f.kind().ordinal()) : 0)
+                + (f.seq() != 0 ? CodedOutputStream.computeInt32Size(4, f.seq()) : 0) + stringSize(5, f.text());
+    }
+
+    private static int toolCallSize(ToolCall call) {
+        return stringSize(1, call.name()) + structSize(2, call.args()) + stringSize(3, call.requestId());
+    }
+
+    private static int toolCallEventSize(Map<?, ?> m) {
+        return stringSize(1, (String) m.get("requestId")) + stringSize(2, (String) m.get("sessionId"))
+                + stringSize(3, (String) m.get("tool")) + structSize(4, (Map<?, ?>) m.get("args"));
+    }
+
+    private static int timestampSize(Instant ts) {
+        return (ts.getEpochSecond() != 0 ? CodedOutputStream.computeInt64Size(1, ts.getEpochSecond()) : 0)
+                + (ts.getNano() != 0 ? CodedOutputStream.computeInt32Size(2, ts.getNano()) : 0);
+    }
+
+    private static int timestampFieldSize(int field, Instant ts) {
+        return ts == null ? 0 : messageSize(field, timestampSize(ts));
+    }
+
+    private static int structSize(int field, Map<?, ?> map) {
+        return map == null ? 0 : messageSize(field, structBodySize(map));
+    }
+
+    private static int structBodySize(Map<?, ?> map) {
+        int size = 0;
+        for (Map.Entry<?, ?> e : map.entrySet()) {
+            int fieldSize = keySize(String.valueOf(e.getKey())) + messageSize(2, valueBodySize(normalize(e.getValue())));
+            size += messageSize(1, fieldSize);
+        }
+        return size;
+    }
+
+    private static int listBodySize(Collection<?> c) {
+        int size = 0;
+        for (Object item : c) {
+            size += messageSize(1, valueBodySize(normalize(item)));
+        }
+        return size;
+    }
+
+    private static int valueBodySize(Object value) {
+        return switch (value) {
+            case null -> CodedOutputStream.computeBoolSize(1, true);
+            case Boolean b -> CodedOutputStream.computeBoolSize(5, b);
+            case Number n when isIntegral(n) -> CodedOutputStream.computeSInt64Size(3, n.longValue());
+            case Number n -> CodedOutputStream.computeDoubleSize(2, n.doubleValue());
+            case String s -> CodedOutputStream.computeStringSize(4, s);
+            case Map<?, ?> m -> messageSize(6, structBodySize(m));
+            case Collection<?> c -> messageSize(7, listBodySize(c));
+            default -> throw new IllegalStateException("Not normalized: " + value.getClass());
+        };
+    }
+
+    private static int keySize(String key) {
+        return key.isEmpty() ? 0 : CodedOutputStream.computeStringSize(1, key);
+    }
+
+    private static int stringSize(int field, String value) {
+        return value == null ? 0 : CodedOutputStream.computeStringSize(field, value);
+    }
+
+    private static int messageSize(int field, int bodySize) {
+        return CodedOutputStream.computeTagSize(field) + CodedOutputStream.computeUInt32SizeNoTag(bodySize) + bodySize;
+    }
+
+    private static Map<String, Object> readStruct(CodedInputStream in) throws IOException {
+        int limit = in.pushLimit(in.readRawVarint32());
+        Map<String, Object> map = new LinkedHashMap<>();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            if (WireFormat.getTagFieldNumber(tag) != 1) {
+                in.skipField(tag);
+                continue;
+            }
+            int fieldLimit = in.pushLimit(in.readRawVarint32());
+            String key = "";
+            Object value = null;
+            int fieldTag;
+            while ((fieldTag = in.readTag()) != 0) {
+                switch (WireFormat.getTagFieldNumber(fieldTag)) {
+                    case 1 -> key = in.readStringRequireUtf8();
+                    case 2 -> value = readValue(in);
+                    default -> in.skipField(fieldTag);
+                }
+            }
+            in.popLimit(fieldLimit);
+            map.put(key, value);
+        }
+        in.popLimit(limit);
+        return map;
+    }
+
+    private static Object readValue(CodedInputStream in) throws IOException {
+        int limit = in.pushLimit(in.readRawVarint32());
+        Object value = null;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> {
+                    in.readBool();
+                    value = null;
+                }
+                case 2 -> value = in.readDouble();
+                case 3 -> {
+                    long l = in.readSInt64();
+                    value = l == (int) l ? (Object) (int) l : (Object) l;
+                }
+                case 4 -> value = in.readStringRequireUtf8();
+                case 5 -> value = in.readBool();
+                case 6 -> value = readStruct(in);
+                case 7 -> value = readList(in);
+                default -> in.skipField(tag);
+            }
+        }
+        in.popLimit(limit);
+        return value;
+    }
+
+    private static List<Object> readList(CodedInputStream in) throws IOException {
+        int limit = in.pushLimit(in.readRawVarint32());
+        List<Object> list = new ArrayList<>();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            if (WireFormat.getTagFieldNumber(tag) == 1) {
+                list.add(readValue(in));
+            } else {
+                in.skipField(tag);
+            }
+        }
+        in.popLimit(limit);
+        return list;
+    }
+
+    private static void writeString(CodedOutputStream out, int field, String value) throws IOException {
+        if (value != null) {
+            out.writeString(field, value);
+        }
+    }
+
+    private static void writeHeader(CodedOutputStream out, int field, int bodySize) throws IOException {
+        out.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeUInt32NoTag(bodySize);
+    }
+
+    private static byte[] encode(int size, Writer writer) {
+        byte[] bytes = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        try {
+            writer.write(out);
+            out.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,47 @@
+package com.beanvisionary.common;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Value deserializer for the chat pipeline topics that reads both wire formats, so consumers can
+ * be upgraded before any producer switches to binary and old JSON records are still readable
+ * afterwards.
+ *
+ * Records tagged {@link EventCodec#BINARY_V1} are decoded by {@link EventCodec} into their event
+ * objects. Untagged records are JSON and are returned as strings, for an
+ * {@link EventMessageConverter} to convert to the listener's parameter type.
+ */
+public class EventDeserializer implements Deserializer<Object> {
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return data == null ? null : new String(data, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        Header format = headers != null ? headers.lastHeader(EventCodec.FORMAT_HEADER) : null;
+        if (format == null || data == null) {
+            return deserialize(topic, data);
+        }
+        String version = new String(format.value(), StandardCharsets.UTF_8);
+        if (!EventCodec.BINARY_V1.equals(version)) {
+            throw new SerializationException("Unsupported event format " + version + " on " + topic);
+        }
+        Header type = headers.lastHeader(EventCodec.TYPE_HEADER);
+        if (type == null) {
+            throw new SerializationException("Binary event without " + EventCodec.TYPE_HEADER + " header on " + topic);
+        }
+        try {
+            return EventCodec.decode(EventCodec.Type.fromHeader(new String(type.value(), StandardCharsets.UTF_8)), data);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new SerializationException("Cannot decode binary event on " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.beanvisionary.common;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.utils.Bytes;
+import org.springframework.kafka.support.converter.JsonMessageConverter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Record converter for values read by {@link EventDeserializer}: JSON strings are converted to the
+ * listener's parameter type as by {@link JsonMessageConverter}, and events already decoded from
+ * the binary format are passed through, or converted with the object mapper if the listener
+ * declares a different type.
+ */
+public class EventMessageConverter extends JsonMessageConverter {
+
+    public EventMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected Object extractAndConvertValue(ConsumerRecord<?, ?> record, Type type) {
+        Object value = record.value();
+        if (value == null || value instanceof String || value instanceof byte[] || value instanceof Bytes) {
+            return super.extractAndConvertValue(record, type);
+        }
+        JavaType javaType = getObjectMapper().constructType(type != null ? type : Object.class);
+        if (javaType.getRawClass().isInstance(value)) {
+            return value;
+        }
+        return getObjectMapper().convertValue(value, javaType);
+    }
+}
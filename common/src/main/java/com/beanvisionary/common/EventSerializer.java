@@ -0,0 +1,54 @@
+package com.beanvisionary.common;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Value serializer for the chat pipeline topics.
+ *
+ * With {@code event.wire.format=binary} in the producer properties, chat requests, chat
+ * responses, stream frames, tool calls and tool results are written with {@link EventCodec} and tagged with the
+ * {@link EventCodec#FORMAT_HEADER} and {@link EventCodec#TYPE_HEADER} headers. Everything else,
+ * and everything in the default {@code json} format, is written by Spring Kafka's
+ * {@link JsonSerializer}, configured from the same properties as before.
+ */
+public class EventSerializer implements Serializer<Object> {
+
+    public static final String WIRE_FORMAT_CONFIG = "event.wire.format";
+
+    private static final byte[] BINARY_V1 = EventCodec.BINARY_V1.getBytes(StandardCharsets.UTF_8);
+
+    private final JsonSerializer<Object> json = new JsonSerializer<>();
+    private boolean binary;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+        binary = "binary".equalsIgnoreCase(String.valueOf(configs.get(WIRE_FORMAT_CONFIG)));
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return json.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        EventCodec.Type type = binary && headers != null ? EventCodec.typeOf(topic, data) : null;
+        if (type == null) {
+            return json.serialize(topic, headers, data);
+        }
+        headers.add(EventCodec.FORMAT_HEADER, BINARY_V1);
+        headers.add(EventCodec.TYPE_HEADER, type.header().getBytes(StandardCharsets.UTF_8));
+        return EventCodec.encode(type, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
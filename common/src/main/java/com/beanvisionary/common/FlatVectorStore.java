@@ -0,0 +1,428 @@
+package com.beanvisionary.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * In-process {@link LocalVectorStore} that scores every vector on each search: exact recall up to
+ * quantization error, and a latency that grows linearly but predictably with the collection.
+ *
+ * The scan runs over {@link QuantizedVectors}, an off-heap int8 arena a quarter of the size of the
+ * float vectors, scored with the JDK Vector API when {@code jdk.incubator.vector} is available.
+ * It is split across the common fork-join pool in ranges of {@code minSlotsPerTask} slots and
+ * keeps the best {@code topK * rescoreFactor} candidates, which are then rescored against the
+ * full-precision vectors. Those live in {@link OffHeapVectors}; with a directory they are mapped
+ * from {@code vectors.f32} and only the pages of rescored candidates need to be resident.
+ *
+ * Inserts are serialized and searches run concurrently with them. Deletes and replacements clear
+ * the old slot; its vector stays in the arena and is skipped until cleared slots make up half of
+ * it, when {@link #save()} copies the live slots into a new arena. {@link #save()} writes the documents
+ * to {@code flat.bin}; loading re-quantizes the mapped vectors, so a writable store reopened over
+ * an existing directory serves them before anything new is added.
+ */
+public class FlatVectorStore implements LocalVectorStore, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlatVectorStore.class);
+    private static final int SNAPSHOT_MAGIC = 0x464C4154;
+    private static final String INDEX_FILE = "flat.bin";
+    private static final int COMPACT_MIN_DEAD = 1024;
+
+    /**
+     * @param rescoreFactor candidates kept from the quantized scan per requested result
+     * @param minSlotsPerTask slots below which a scan range is not split further
+     */
+    public record Options(int rescoreFactor, int minSlotsPerTask) {}
+
+    private static final class Arena {
+        final QuantizedVectors codes;
+        final OffHeapVectors vectors;
+        final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        volatile Document[] documents = new Document[1024];
+        volatile int size;
+
+        Arena(OffHeapVectors vectors) {
+            this.codes = new QuantizedVectors(vectors.dimensions());
+            this.vectors = vectors;
+        }
+
+        Document document(int slot) {
+            Document[] current = documents;
+            return slot < current.length ? current[slot] : null;
+        }
+    }
+
+    private final class Scan extends RecursiveTask<TopK> {
+        private final Arena arena;
+        private final float[] query;
+        private final int from;
+        private final int to;
+        private final int k;
+        private final IntPredicate accept;
+
+        Scan(Arena arena, float[] query, int from, int to, int k, IntPredicate accept) {
+            this.arena = arena;
+            this.query = query;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+            this.accept = accept;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (to - from <= options.minSlotsPerTask()) {
+                TopK top = new TopK(k);
+                arena.codes.scan(from, to, query, top, accept);
+                return top;
+            }
+            int mid = (from + to) >>> 1;
+            Scan left = new Scan(arena, query, from, mid, k, accept);
+            left.fork();
+            TopK right = new Scan(arena, query, mid, to, k, accept).compute();
+            return right.merge(left.join());
+        }
+    }
+
+    private final EmbeddingModel embeddingModel;
+    private final Options options;
+    private final Path directory;
+    private final boolean readOnly;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Arena arena;
+
+    public FlatVectorStore(EmbeddingModel embeddingModel, Options options, Path directory, boolean readOnly) {
+        this.embeddingModel = embeddingModel;
+        this.options = options;
+        this.directory = directory;
+        this.readOnly = readOnly;
+        if (directory != null && Files.exists(directory.resolve(INDEX_FILE))) {
+            this.arena = load();
+        }
+        logger.info("Flat vector scan uses {}", QuantizedVectors.vectorized() ? "the Vector API" : "scalar code");
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        add(documents, embeddingModel.embed(documents.stream().map(Document::getText).toList()));
+    }
+
+    @Override
+    public void add(List<Document> documents, List<float[]> embeddings) {
+        checkWritable();
+        writeLock.lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                insert(documents.get(i), VectorMath.normalize(embeddings.get(i)));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(List<String> ids) {
+        checkWritable();
+        Arena a = arena;
+        if (a == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            for (String id : ids) {
+                Integer slot = a.ids.remove(id);
+                if (slot != null) {
+                    a.documents[slot] = null;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        checkWritable();
+        Arena a = arena;
+        if (a == null) {
+            return;
+        }
+        Predicate<Map<String, Object>> filter = MetadataFilter.compile(filterExpression);
+        writeLock.lock();
+        try {
+            for (int i = 0; i < a.size; i++) {
+                Document document = a.documents[i];
+                if (document != null && filter.test(document.getMetadata())) {
+                    a.documents[i] = null;
+                    a.ids.remove(document.getId(), i);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Document> findById(List<String> ids) {
+        Arena a = arena;
+        if (a == null) {
+            return List.of();
+        }
+        List<Document> found = new ArrayList<>();
+        for (String id : ids) {
+            Integer slot = a.ids.get(id);
+            Document document = slot != null ? a.document(slot) : null;
+            if (document != null) {
+                found.add(document);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<String> findIds(Predicate<Map<String, Object>> filter) {
+        Arena a = arena;
+        if (a == null) {
+            return List.of();
+        }
+        Document[] documents = a.documents;
+        List<String> found = new ArrayList<>();
+        for (int i = 0; i < a.size; i++) {
+            Document document = documents[i];
+            if (document != null && filter.test(document.getMetadata())) {
+                found.add(document.getId());
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        Arena a = arena;
+        int size = a != null ? a.size : 0;
+        if (size == 0) {
+            return List.of();
+        }
+        float[] query = VectorMath.normalize(embeddingModel.embed(request.getQuery()));
+        Document[] documents = a.documents;
+        IntPredicate accept;
+        if (request.getFilterExpression() == null) {
+            accept = slot -> documents[slot] != null;
+        } else {
+            Predicate<Map<String, Object>> filter = MetadataFilter.compile(request.getFilterExpression());
+            accept = slot -> documents[slot] != null && filter.test(documents[slot].getMetadata());
+        }
+
+        int k = request.getTopK() * Math.max(1, options.rescoreFactor());
+        TopK candidates = ForkJoinPool.commonPool().invoke(new Scan(a, query, 0, size, k, accept));
+
+        int[] slots = candidates.slots();
+        float[] exact = new float[slots.length];
+        Integer[] order = new Integer[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            exact[i] = a.vectors.dot(slots[i], query);
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> Float.compare(exact[y], exact[x]));
+
+        List<Document> results = new ArrayList<>(request.getTopK());
+        for (int i : order) {
+            if (results.size() >= request.getTopK() || exact[i] < request.getSimilarityThreshold()) {
+                break;
+            }
+            Document document = documents[slots[i]];
+            if (document == null) {
+                continue;
+            }
+            Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+            metadata.put(DocumentMetadata.DISTANCE.value(), 1 - exact[i]);
+            results.add(Document.builder()
+                    .id(document.getId())
+                    .text(document.getText())
+                    .metadata(metadata)
+                    .score((double) exact[i])
+                    .build());
+        }
+        return results;
+    }
+
+    @Override
+    public int size() {
+        Arena a = arena;
+        return a == null ? 0 : a.ids.size();
+    }
+
+    @Override
+    public void save() {
+        if (readOnly || arena == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            Arena previous = arena;
+            Arena a = compactIfSparse(previous);
+            if (directory == null) {
+                return;
+            }
+            a.vectors.force();
+            VectorSnapshot.write(directory.resolve(INDEX_FILE), SNAPSHOT_MAGIC, a.vectors.dimensions(), out -> {
+                out.writeInt(a.size);
+                for (int i = 0; i < a.size; i++) {
+                    Document document = a.documents[i];
+                    out.writeByte(document == null ? 0 : 1);
+                    if (document != null) {
+                        VectorSnapshot.writeDocument(out, document);
+                    }
+                }
+            }, a != previous);
+            logger.info("Saved flat index with {} slots to {}", a.size, directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save flat index to " + directory, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void reload() {
+        if (directory == null || !Files.exists(directory.resolve(INDEX_FILE))) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            Arena previous = arena;
+            arena = load();
+            if (previous != null) {
+                previous.vectors.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to close previous flat index vectors: {}", e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        save();
+        Arena a = arena;
+        if (a != null) {
+            a.vectors.close();
+        }
+    }
+
+    private void insert(Document document, float[] vector) {
+        Arena a = arena;
+        if (a == null) {
+            a = arena = new Arena(openVectors(vector.length));
+        }
+        insert(a, document, vector);
+    }
+
+    private static void insert(Arena a, Document document, float[] vector) {
+        Integer previous = a.ids.get(document.getId());
+        if (previous != null) {
+            a.documents[previous] = null;
+        }
+        int slot = a.size;
+        a.vectors.set(slot, vector);
+        a.codes.set(slot, vector);
+        if (slot >= a.documents.length) {
+            a.documents = Arrays.copyOf(a.documents, a.documents.length * 2);
+        }
+        a.documents[slot] = document;
+        a.size = slot + 1;
+        a.ids.put(document.getId(), slot);
+    }
+
+    /**
+     * Copies the live slots into a new arena once at least half of the slots, and
+     * {@value #COMPACT_MIN_DEAD} or more, are cleared ones. The new arena replaces the current one at
+     * once; with a directory, its vectors go to {@code vectors.f32.compact} until the caller writes
+     * the index that refers to them.
+     *
+     * @return the arena to save
+     */
+    private Arena compactIfSparse(Arena a) throws IOException {
+        int dead = a.size - a.ids.size();
+        if (dead < COMPACT_MIN_DEAD || dead < a.ids.size()) {
+            return a;
+        }
+        Arena compacted = new Arena(VectorSnapshot.openCompactVectors(directory, a.vectors.dimensions()));
+        float[] vector = new float[a.vectors.dimensions()];
+        for (int i = 0; i < a.size; i++) {
+            Document document = a.documents[i];
+            if (document != null) {
+                insert(compacted, document, a.vectors.get(i, vector));
+            }
+        }
+        arena = compacted;
+        a.vectors.close();
+        logger.info("Compacted flat index: dropped {} cleared slots, {} left", dead, compacted.size);
+        return compacted;
+    }
+
+    private OffHeapVectors openVectors(int dimensions) {
+        return VectorSnapshot.openVectors(directory, dimensions, readOnly);
+    }
+
+    private Arena load() {
+        Path index = directory.resolve(INDEX_FILE);
+        try (DataInputStream in = VectorSnapshot.open(index, SNAPSHOT_MAGIC, "a flat vector index")) {
+            int dimensions = in.readInt();
+            int size = in.readInt();
+
+            Arena a = new Arena(openVectors(dimensions));
+            if (a.vectors.capacity() < size) {
+                a.vectors.close();
+                throw new IllegalStateException("Vectors in " + directory + " hold fewer than the " + size + " slots of " + index);
+            }
+            a.documents = new Document[Math.max(1024, Integer.highestOneBit(Math.max(1, size)) * 2)];
+            float[] vector = new float[dimensions];
+            for (int i = 0; i < size; i++) {
+                a.codes.set(i, a.vectors.get(i, vector));
+                if (in.readByte() == 0) {
+                    continue;
+                }
+                Document document = VectorSnapshot.readDocument(in);
+                a.documents[i] = document;
+                a.ids.put(document.getId(), i);
+            }
+            a.size = size;
+            logger.info("Loaded flat index with {} slots ({} live) from {}", size, a.ids.size(), directory);
+            return a;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load flat index from " + index, e);
+        }
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Flat index at " + directory + " is read-only");
+        }
+    }
+}
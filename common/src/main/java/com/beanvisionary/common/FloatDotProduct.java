@@ -0,0 +1,42 @@
+package com.beanvisionary.common;
+
+/**
+ * Dot product of two float vectors.
+ *
+ * {@link #create()} returns a Vector API implementation when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, otherwise a scalar one.
+ */
+interface FloatDotProduct {
+
+    /**
+     * @return the dot product of the first {@code length} elements of {@code a} and {@code b}
+     */
+    float dot(float[] a, float[] b, int length);
+
+    static FloatDotProduct create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new VectorizedFloatDotProduct();
+            } catch (LinkageError e) {
+                // module present but not usable; fall through to scalar
+            }
+        }
+        return FloatDotProduct::scalar;
+    }
+
+    static float scalar(float[] a, float[] b, int length) {
+        // four independent sums so the adds are not one serial dependency chain
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+}
@@ -0,0 +1,647 @@
+package com.beanvisionary.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * In-process {@link LocalVectorStore} backed by an HNSW graph (Malkov and Yashunin) over cosine similarity.
+ *
+ * Normalized vectors are kept off-heap in {@link OffHeapVectors}; the graph and the documents stay
+ * on the heap. Inserts are serialized, while searches run concurrently with them: a node becomes
+ * reachable only after its vector and links are in place, and neighbor lists are replaced rather
+ * than modified. Deletes and replacements mark the old node as deleted; it keeps routing searches
+ * but is never returned. Once deleted nodes make up half of the graph, {@link #save()} rebuilds it
+ * from the live ones.
+ *
+ * With a directory, vectors are memory-mapped from {@code vectors.f32} and {@link #save()} writes
+ * the graph and documents to {@code index.bin} (see {@link VectorSnapshot}), which is streamed back
+ * onto the heap when loading. A read-only store opens the same files written by another process and picks up new snapshots
+ * on {@link #reload()}.
+ */
+public class HnswVectorStore implements LocalVectorStore, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HnswVectorStore.class);
+    private static final int SNAPSHOT_MAGIC = 0x484E5357;
+    private static final String INDEX_FILE = "index.bin";
+    private static final int COMPACT_MIN_DEAD = 1024;
+
+    /**
+     * @param m maximum links per node above layer 0 (twice as many on layer 0)
+     * @param efConstruction candidate list size while inserting
+     * @param efSearch minimum candidate list size while searching; raised to top k when smaller
+     */
+    public record Options(int m, int efConstruction, int efSearch) {}
+
+    private record EntryPoint(int node, int level) {}
+
+    private static final class Node {
+        final Document document;
+        final AtomicReferenceArray<int[]> links;
+        volatile boolean deleted;
+
+        Node(Document document, int level) {
+            this.document = document;
+            this.links = new AtomicReferenceArray<>(level + 1);
+            for (int l = 0; l <= level; l++) {
+                links.set(l, new int[0]);
+            }
+        }
+
+        int level() {
+            return links.length() - 1;
+        }
+    }
+
+    private static final class Graph {
+        final OffHeapVectors vectors;
+        final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        volatile Node[] nodes = new Node[1024];
+        volatile int size;
+        volatile EntryPoint entry;
+
+        Graph(OffHeapVectors vectors) {
+            this.vectors = vectors;
+        }
+
+        Node node(int index) {
+            Node[] current = nodes;
+            return index < current.length ? current[index] : null;
+        }
+    }
+
+    /**
+     * Per-thread search state reused across searches and inserts: visited marks stamped with a
+     * generation number so they never need clearing, the two heaps of a layer search, and its
+     * result arrays, which hold the nodes found most similar first until the next search.
+     */
+    private static final class Scratch {
+        int[] visited = new int[1024];
+        int generation;
+        final NodeHeap candidates = new NodeHeap(256, true);
+        final NodeHeap results = new NodeHeap(256, false);
+        final NodeHeap closest = new NodeHeap(64, false);
+        int[] found = new int[256];
+        float[] foundScores = new float[256];
+        int[] pruned = new int[256];
+        float[] base;
+
+        void startVisit(int nodes) {
+            if (++generation == 0) {
+                Arrays.fill(visited, 0);
+                generation = 1;
+            }
+            if (visited.length < nodes) {
+                visited = new int[Math.max(nodes, visited.length * 2)];
+            }
+        }
+
+        /**
+         * @return false when {@code node} was already visited in this search
+         */
+        boolean visit(int node) {
+            if (node >= visited.length) {
+                visited = Arrays.copyOf(visited, Math.max(node + 1, visited.length * 2));
+            }
+            if (visited[node] == generation) {
+                return false;
+            }
+            visited[node] = generation;
+            return true;
+        }
+
+        float[] base(int dimensions) {
+            if (base == null || base.length != dimensions) {
+                base = new float[dimensions];
+            }
+            return base;
+        }
+
+        void ensureFound(int count) {
+            if (found.length < count) {
+                found = new int[count];
+                foundScores = new float[count];
+                pruned = new int[count];
+            }
+        }
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+    private static final int[] NO_LINKS = new int[0];
+
+    private final EmbeddingModel embeddingModel;
+    private final Options options;
+    private final Path directory;
+    private final boolean readOnly;
+    private final double levelMultiplier;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Graph graph;
+
+    public HnswVectorStore(EmbeddingModel embeddingModel, Options options, Path directory, boolean readOnly) {
+        this.embeddingModel = embeddingModel;
+        this.options = options;
+        this.directory = directory;
+        this.readOnly = readOnly;
+        this.levelMultiplier = 1 / Math.log(Math.max(2, options.m()));
+        if (directory != null && Files.exists(directory.resolve(INDEX_FILE))) {
+            this.graph = load();
+        }
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        add(documents, embeddingModel.embed(documents.stream().map(Document::getText).toList()));
+    }
+
+    @Override
+    public void add(List<Document> documents, List<float[]> embeddings) {
+        checkWritable();
+        writeLock.lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                insert(documents.get(i), VectorMath.normalize(embeddings.get(i)));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(List<String> ids) {
+        checkWritable();
+        Graph g = graph;
+        if (g == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            for (String id : ids) {
+                Integer node = g.ids.remove(id);
+                if (node != null) {
+                    g.node(node).deleted = true;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        checkWritable();
+        Graph g = graph;
+        if (g == null) {
+            return;
+        }
+        Predicate<Map<String, Object>> filter = MetadataFilter.compile(filterExpression);
+        writeLock.lock();
+        try {
+            for (int i = 0; i < g.size; i++) {
+                Node node = g.node(i);
+                if (!node.deleted && filter.test(node.document.getMetadata())) {
+                    node.deleted = true;
+                    g.ids.remove(node.document.getId(), i);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Document> findById(List<String> ids) {
+        Graph g = graph;
+        if (g == null) {
+            return List.of();
+        }
+        List<Document> found = new ArrayList<>();
+        for (String id : ids) {
+            Integer node = g.ids.get(id);
+            if (node != null) {
+                found.add(g.node(node).document);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<String> findIds(Predicate<Map<String, Object>> filter) {
+        Graph g = graph;
+        if (g == null) {
+            return List.of();
+        }
+        List<String> found = new ArrayList<>();
+        for (int i = 0; i < g.size; i++) {
+            Node node = g.node(i);
+            if (!node.deleted && filter.test(node.document.getMetadata())) {
+                found.add(node.document.getId());
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        Graph g = graph;
+        EntryPoint entry = g != null ? g.entry : null;
+        if (entry == null) {
+            return List.of();
+        }
+        float[] query = VectorMath.normalize(embeddingModel.embed(request.getQuery()));
+        Predicate<Map<String, Object>> filter = MetadataFilter.compile(request.getFilterExpression());
+        IntPredicate accept = i -> {
+            Node node = g.node(i);
+            return !node.deleted && filter.test(node.document.getMetadata());
+        };
+
+        int ep = entry.node();
+        for (int level = entry.level(); level > 0; level--) {
+            ep = greedy(g, query, ep, level);
+        }
+        Scratch scratch = SCRATCH.get();
+        int count = searchLayer(scratch, g, query, ep, Math.max(options.efSearch(), request.getTopK()), 0, accept);
+
+        List<Document> results = new ArrayList<>(request.getTopK());
+        for (int i = 0; i < count; i++) {
+            float similarity = scratch.foundScores[i];
+            if (results.size() >= request.getTopK() || similarity < request.getSimilarityThreshold()) {
+                break;
+            }
+            Document document = g.node(scratch.found[i]).document;
+            Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+            metadata.put(DocumentMetadata.DISTANCE.value(), 1 - similarity);
+            results.add(Document.builder()
+                    .id(document.getId())
+                    .text(document.getText())
+                    .metadata(metadata)
+                    .score((double) similarity)
+                    .build());
+        }
+        return results;
+    }
+
+    @Override
+    public int size() {
+        Graph g = graph;
+        return g == null ? 0 : g.ids.size();
+    }
+
+    @Override
+    public void save() {
+        if (readOnly || graph == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            Graph previous = graph;
+            Graph g = compactIfSparse(previous);
+            if (directory == null) {
+                return;
+            }
+            g.vectors.force();
+            VectorSnapshot.write(directory.resolve(INDEX_FILE), SNAPSHOT_MAGIC, g.vectors.dimensions(), out -> {
+                out.writeInt(g.size);
+                out.writeInt(g.entry != null ? g.entry.node() : -1);
+                for (int i = 0; i < g.size; i++) {
+                    Node node = g.node(i);
+                    out.writeByte(node.deleted ? 1 : 0);
+                    out.writeByte(node.level());
+                    for (int l = 0; l <= node.level(); l++) {
+                        int[] links = node.links.get(l);
+                        out.writeShort(links.length);
+                        for (int link : links) {
+                            out.writeInt(link);
+                        }
+                    }
+                    VectorSnapshot.writeDocument(out, node.document);
+                }
+            }, g != previous);
+            logger.info("Saved HNSW index with {} nodes to {}", g.size, directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save HNSW index to " + directory, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void reload() {
+        if (directory == null || !Files.exists(directory.resolve(INDEX_FILE))) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            Graph previous = graph;
+            graph = load();
+            if (previous != null) {
+                previous.vectors.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to close previous HNSW vectors: {}", e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        save();
+        Graph g = graph;
+        if (g != null) {
+            g.vectors.close();
+        }
+    }
+
+    private void insert(Document document, float[] vector) {
+        Graph g = graph;
+        if (g == null) {
+            g = graph = new Graph(openVectors(vector.length));
+        }
+        insert(g, document, vector);
+    }
+
+    private void insert(Graph g, Document document, float[] vector) {
+        Integer previous = g.ids.get(document.getId());
+        if (previous != null) {
+            g.node(previous).deleted = true;
+        }
+
+        int index = g.size;
+        int level = (int) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * levelMultiplier);
+        g.vectors.set(index, vector);
+        Node node = new Node(document, level);
+        if (index >= g.nodes.length) {
+            g.nodes = Arrays.copyOf(g.nodes, g.nodes.length * 2);
+        }
+        g.nodes[index] = node;
+
+        EntryPoint entry = g.entry;
+        if (entry != null) {
+            int ep = entry.node();
+            for (int l = entry.level(); l > level; l--) {
+                ep = greedy(g, vector, ep, l);
+            }
+            Scratch scratch = SCRATCH.get();
+            for (int l = Math.min(level, entry.level()); l >= 0; l--) {
+                int count = searchLayer(scratch, g, vector, ep, options.efConstruction(), l, null);
+                int[] selected = selectNeighbors(scratch, g, count, maxLinks(l));
+                ep = scratch.found[0];
+                node.links.set(l, selected);
+                for (int neighbor : selected) {
+                    link(scratch, g, neighbor, index, l);
+                }
+            }
+        }
+
+        g.size = index + 1;
+        g.ids.put(document.getId(), index);
+        if (entry == null || level > entry.level()) {
+            g.entry = new EntryPoint(index, level);
+        }
+    }
+
+    /**
+     * Rebuilds the graph from its live nodes once at least half of them, and {@value #COMPACT_MIN_DEAD}
+     * or more, are deleted ones. The rebuilt graph replaces the current one at once; with a directory,
+     * its vectors go to {@code vectors.f32.compact} until the caller writes the index that refers to
+     * them.
+     *
+     * @return the graph to save
+     */
+    private Graph compactIfSparse(Graph g) throws IOException {
+        int dead = g.size - g.ids.size();
+        if (dead < COMPACT_MIN_DEAD || dead < g.ids.size()) {
+            return g;
+        }
+        Graph compacted = new Graph(VectorSnapshot.openCompactVectors(directory, g.vectors.dimensions()));
+        float[] vector = new float[g.vectors.dimensions()];
+        for (int i = 0; i < g.size; i++) {
+            Node node = g.node(i);
+            if (!node.deleted) {
+                insert(compacted, node.document, g.vectors.get(i, vector));
+            }
+        }
+        graph = compacted;
+        g.vectors.close();
+        logger.info("Rebuilt HNSW index without {} deleted nodes, {} left", dead, compacted.size);
+        return compacted;
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? options.m() * 2 : options.m();
+    }
+
+    /**
+     * Adds a back link from {@code from} to {@code to}, keeping the closest links when full. The
+     * neighbor heuristic is only applied to a new node's own links; running it on every overflowing
+     * back link roughly doubles insert time for no measurable gain in recall.
+     */
+    private void link(Scratch scratch, Graph g, int from, int to, int level) {
+        Node node = g.node(from);
+        int[] current = node.links.get(level);
+        int max = maxLinks(level);
+        if (current.length < max) {
+            int[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = to;
+            node.links.set(level, grown);
+            return;
+        }
+        float[] base = g.vectors.get(from, scratch.base(g.vectors.dimensions()));
+        NodeHeap closest = scratch.closest;
+        closest.clear();
+        closest.push(to, g.vectors.dot(to, base));
+        for (int c : current) {
+            closest.push(c, g.vectors.dot(c, base));
+            if (closest.size() > max) {
+                closest.pop();
+            }
+        }
+        int[] kept = new int[closest.size()];
+        for (int i = 0; i < kept.length; i++) {
+            kept[i] = closest.pop();
+        }
+        node.links.set(level, kept);
+    }
+
+    /**
+     * HNSW neighbor heuristic over the {@code count} nodes of the last layer search: keeps a
+     * candidate only if it is closer to the base than to every neighbor kept so far, then fills any
+     * remaining slots with the closest pruned candidates.
+     */
+    private static int[] selectNeighbors(Scratch scratch, Graph g, int count, int max) {
+        int[] selected = new int[Math.min(max, count)];
+        int kept = 0;
+        int pruned = 0;
+        for (int i = 0; i < count && kept < selected.length; i++) {
+            int candidate = scratch.found[i];
+            float similarity = scratch.foundScores[i];
+            boolean diverse = true;
+            for (int j = 0; j < kept; j++) {
+                if (g.vectors.dot(candidate, selected[j]) > similarity) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[kept++] = candidate;
+            } else {
+                scratch.pruned[pruned++] = candidate;
+            }
+        }
+        for (int i = 0; i < pruned && kept < selected.length; i++) {
+            selected[kept++] = scratch.pruned[i];
+        }
+        return selected;
+    }
+
+    private static int greedy(Graph g, float[] query, int entry, int level) {
+        int current = entry;
+        float best = g.vectors.dot(current, query);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbor : links(g, current, level)) {
+                float similarity = g.vectors.dot(neighbor, query);
+                if (similarity > best) {
+                    best = similarity;
+                    current = neighbor;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer. Only nodes passing {@code accept} (all nodes when null) are
+     * collected, but every node is used for routing. The nodes found are left in
+     * {@code scratch.found} and {@code scratch.foundScores}, most similar first.
+     *
+     * @return the number of nodes found, up to {@code ef}
+     */
+    private static int searchLayer(Scratch scratch, Graph g, float[] query, int entry, int ef, int level, IntPredicate accept) {
+        scratch.startVisit(g.size);
+        NodeHeap candidates = scratch.candidates;
+        NodeHeap results = scratch.results;
+        candidates.clear();
+        results.clear();
+
+        float start = g.vectors.dot(entry, query);
+        scratch.visit(entry);
+        candidates.push(entry, start);
+        if (accept == null || accept.test(entry)) {
+            results.push(entry, start);
+        }
+
+        while (!candidates.isEmpty()) {
+            float current = candidates.topScore();
+            int node = candidates.pop();
+            if (results.size() >= ef && current < results.topScore()) {
+                break;
+            }
+            for (int neighbor : links(g, node, level)) {
+                if (!scratch.visit(neighbor)) {
+                    continue;
+                }
+                float similarity = g.vectors.dot(neighbor, query);
+                if (results.size() < ef || similarity > results.topScore()) {
+                    candidates.push(neighbor, similarity);
+                    if (accept == null || accept.test(neighbor)) {
+                        results.push(neighbor, similarity);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+
+        int count = results.size();
+        scratch.ensureFound(count);
+        for (int i = count - 1; i >= 0; i--) {
+            scratch.foundScores[i] = results.topScore();
+            scratch.found[i] = results.pop();
+        }
+        return count;
+    }
+
+    private static int[] links(Graph g, int node, int level) {
+        Node n = g.node(node);
+        return n != null && level <= n.level() ? n.links.get(level) : NO_LINKS;
+    }
+
+    private OffHeapVectors openVectors(int dimensions) {
+        return VectorSnapshot.openVectors(directory, dimensions, readOnly);
+    }
+
+    private Graph load() {
+        Path index = directory.resolve(INDEX_FILE);
+        try (DataInputStream in = VectorSnapshot.open(index, SNAPSHOT_MAGIC, "an HNSW index")) {
+            int dimensions = in.readInt();
+            int size = in.readInt();
+            int entry = in.readInt();
+
+            Graph g = new Graph(openVectors(dimensions));
+            g.nodes = new Node[Math.max(1024, Integer.highestOneBit(Math.max(1, size)) * 2)];
+            for (int i = 0; i < size; i++) {
+                boolean deleted = in.readByte() == 1;
+                int level = in.readByte();
+                int[][] links = new int[level + 1][];
+                for (int l = 0; l <= level; l++) {
+                    links[l] = new int[in.readShort()];
+                    for (int k = 0; k < links[l].length; k++) {
+                        links[l][k] = in.readInt();
+                    }
+                }
+                Document document = VectorSnapshot.readDocument(in);
+                Node node = new Node(document, level);
+                for (int l = 0; l <= level; l++) {
+                    node.links.set(l, links[l]);
+                }
+                node.deleted = deleted;
+                g.nodes[i] = node;
+                if (!deleted) {
+                    g.ids.put(document.getId(), i);
+                }
+            }
+            g.size = size;
+            if (entry >= 0) {
+                g.entry = new EntryPoint(entry, g.nodes[entry].level());
+            }
+            logger.info("Loaded HNSW index with {} nodes ({} live) from {}", size, g.ids.size(), directory);
+            return g;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load HNSW index from " + index, e);
+        }
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("HNSW index at " + directory + " is read-only");
+        }
+    }
+}
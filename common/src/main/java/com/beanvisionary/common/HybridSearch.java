@@ -0,0 +1,107 @@
+package com.beanvisionary.common;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Combines a {@link VectorStore} with a {@link LexicalIndex}.
+ *
+ * In {@link Mode#HYBRID} the lexical index is searched first. When the query contains identifier
+ * terms (see {@link LexicalIndex#isIdentifier}) and the best lexical hit contains all of them, the
+ * hits containing them are returned as they are and the query is never embedded. Otherwise the
+ * vector search runs as well and the two rankings are merged with reciprocal rank fusion: each
+ * document scores {@code sum(1 / (rrfK + rank))} over the lists it appears in.
+ */
+public class HybridSearch {
+
+    public enum Mode { VECTOR, LEXICAL, HYBRID }
+
+    /**
+     * @param documents the results, best first
+     * @param embedded whether the vector store was queried, i.e. the query was embedded
+     */
+    public record Result(List<Document> documents, boolean embedded) {}
+
+    private final VectorStore vectorStore;
+    private final LexicalIndex lexicalIndex;
+    private final int rrfK;
+
+    /**
+     * @param lexicalIndex may be null, in which case every mode falls back to vector search
+     */
+    public HybridSearch(VectorStore vectorStore, LexicalIndex lexicalIndex, int rrfK) {
+        this.vectorStore = vectorStore;
+        this.lexicalIndex = lexicalIndex;
+        this.rrfK = rrfK;
+    }
+
+    public Result search(SearchRequest request, Mode mode) {
+        if (lexicalIndex == null || mode == Mode.VECTOR) {
+            return new Result(vectorStore.similaritySearch(request), true);
+        }
+        List<LexicalIndex.Hit> hits = lexical(request);
+        if (mode == Mode.LEXICAL) {
+            return new Result(hits.stream().limit(request.getTopK()).map(HybridSearch::scored).toList(), false);
+        }
+
+        List<String> identifiers = LexicalIndex.tokenize(request.getQuery()).stream()
+                .filter(LexicalIndex::isIdentifier)
+                .distinct()
+                .toList();
+        if (!identifiers.isEmpty() && !hits.isEmpty() && hits.get(0).matched().containsAll(identifiers)) {
+            return new Result(hits.stream()
+                    .filter(hit -> hit.matched().containsAll(identifiers))
+                    .limit(request.getTopK())
+                    .map(HybridSearch::scored)
+                    .toList(), false);
+        }
+        List<Document> vector = vectorStore.similaritySearch(request);
+        return new Result(fuse(hits.stream().map(LexicalIndex.Hit::document).toList(), vector, request.getTopK()), true);
+    }
+
+    /**
+     * Lexical hits passing the request's filter expression. The similarity threshold does not
+     * apply, since BM25 scores are not similarities.
+     */
+    private List<LexicalIndex.Hit> lexical(SearchRequest request) {
+        if (request.getFilterExpression() == null) {
+            return lexicalIndex.search(request.getQuery(), request.getTopK());
+        }
+        Predicate<Map<String, Object>> filter = MetadataFilter.compile(request.getFilterExpression());
+        // over-fetch so filtering still leaves top k in most cases
+        return lexicalIndex.search(request.getQuery(), request.getTopK() * 4).stream()
+                .filter(hit -> filter.test(hit.document().getMetadata()))
+                .limit(request.getTopK())
+                .toList();
+    }
+
+    private List<Document> fuse(List<Document> lexical, List<Document> vector, int topK) {
+        Map<String, Document> documents = new LinkedHashMap<>();
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (List<Document> ranking : List.of(vector, lexical)) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                Document document = ranking.get(rank);
+                documents.putIfAbsent(document.getId(), document);
+                scores.merge(document.getId(), 1.0 / (rrfK + rank + 1), Double::sum);
+            }
+        }
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()));
+        return ranked.stream()
+                .limit(topK)
+                .map(e -> documents.get(e.getKey()).mutate().score(e.getValue()).build())
+                .toList();
+    }
+
+    private static Document scored(LexicalIndex.Hit hit) {
+        return hit.document().mutate().score(hit.score()).build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.beanvisionary.common;
+
+/**
+ * Dot product of an int8-quantized vector with a float query.
+ *
+ * {@link #create()} returns a Vector API implementation when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector} and has floating point vectors of at least eight
+ * lanes, otherwise a scalar one.
+ */
+interface Int8DotProduct {
+
+    /**
+     * @return the dot product of {@code codes[offset .. offset + query.length)} with {@code query}
+     */
+    float dot(byte[] codes, int offset, float[] query);
+
+    static Int8DotProduct create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                if (VectorizedInt8DotProduct.supported()) {
+                    return new VectorizedInt8DotProduct();
+                }
+            } catch (LinkageError e) {
+                // module present but not usable; fall through to scalar
+            }
+        }
+        return Int8DotProduct::scalar;
+    }
+
+    static float scalar(byte[] codes, int offset, float[] query) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < query.length; i += 4) {
+            s0 += codes[offset + i] * query[i];
+            s1 += codes[offset + i + 1] * query[i + 1];
+            s2 += codes[offset + i + 2] * query[i + 2];
+            s3 += codes[offset + i + 3] * query[i + 3];
+        }
+        for (; i < query.length; i++) {
+            s0 += codes[offset + i] * query[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+}
@@ -4,6 +4,9 @@ public final class KafkaTopics {
     private KafkaTopics() {}
     public static final String AI_REQUESTS = "ai.requests.v1";
     public static final String AI_RESPONSES = "ai.responses.v1";
+    public static final String AI_STREAM = "ai.stream.v1";
     public static final String AI_TOOL_CALLS = "ai.tool.calls.v1";
     public static final String AI_TOOL_RESULTS = "ai.tool.results.v1";
+    public static final String AI_TOOL_STATE = "ai.tool.state.v1";
+    public static final String VECTOR_STORE_CHANGES = "ai.vectors.changes.v1";
 }
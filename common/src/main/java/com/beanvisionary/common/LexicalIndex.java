@@ -0,0 +1,407 @@
+package com.beanvisionary.common;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory BM25 inverted index over document text, for queries that name something exactly
+ * (order numbers, codes, names) where token overlap ranks better than embedding similarity and
+ * needs no embedding call.
+ *
+ * Text is lowercased and split on anything but letters, digits, {@code -} and {@code _}; tokens
+ * joined by {@code -} or {@code _} are indexed both whole and as their parts, so {@code ORD-1234}
+ * matches {@code ord-1234} as well as {@code 1234}. Deleted documents are dropped from scoring at
+ * once; their entries and postings are compacted away once they make up half of the index. Adding
+ * a document whose text is unchanged only replaces its metadata and keeps its postings.
+ *
+ * With a directory, {@link #save()} writes the documents to {@code lexical.bin} and the postings
+ * are rebuilt on load. A read-only index opens a snapshot written by another process and picks up
+ * new ones on {@link #reload()}.
+ */
+public class LexicalIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LexicalIndex.class);
+    private static final int SNAPSHOT_MAGIC = 0x4C455849;
+    private static final String INDEX_FILE = "lexical.bin";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}_-]+");
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int COMPACT_MIN_DEAD = 1024;
+
+    /**
+     * A matching document, its BM25 score and the query terms it contains.
+     */
+    public record Hit(Document document, double score, Set<String> matched) {}
+
+    private record Entry(Document document, int length) {}
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+        int live;
+
+        void add(int doc, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size++] = frequency;
+            live++;
+        }
+
+        /**
+         * Renumbers the postings by {@code remap}, dropping documents mapped to -1.
+         *
+         * @return the postings left
+         */
+        int compact(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc >= 0) {
+                    docs[kept] = doc;
+                    frequencies[kept++] = frequencies[i];
+                }
+            }
+            size = kept;
+            live = kept;
+            return kept;
+        }
+    }
+
+    private static final class Index {
+        final List<Entry> entries = new ArrayList<>();
+        final Map<String, Integer> ids = new HashMap<>();
+        final Map<String, Postings> postings = new HashMap<>();
+        long totalLength;
+    }
+
+    private final Path directory;
+    private final boolean readOnly;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+
+    public LexicalIndex(Path directory, boolean readOnly) {
+        this.directory = directory;
+        this.readOnly = readOnly;
+        if (directory != null && Files.exists(directory.resolve(INDEX_FILE))) {
+            this.index = load();
+        }
+    }
+
+    /**
+     * Adds or replaces documents by id.
+     */
+    public void add(List<Document> documents) {
+        checkWritable();
+        lock.writeLock().lock();
+        try {
+            for (Document document : documents) {
+                if (!replaceMetadata(index, document)) {
+                    remove(index, document.getId());
+                    insert(index, document);
+                }
+            }
+            compactIfSparse(index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(List<String> ids) {
+        checkWritable();
+        lock.writeLock().lock();
+        try {
+            ids.forEach(id -> remove(index, id));
+            compactIfSparse(index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code topK} documents containing any query term, best BM25 score first
+     */
+    public List<Hit> search(String query, int topK) {
+        List<String> terms = List.copyOf(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Index idx = index;
+            int live = idx.ids.size();
+            if (live == 0) {
+                return List.of();
+            }
+            double averageLength = (double) idx.totalLength / live;
+            Map<Integer, double[]> scores = new HashMap<>();
+            Map<Integer, Set<String>> matched = new HashMap<>();
+            for (String term : terms) {
+                Postings p = idx.postings.get(term);
+                if (p == null || p.live == 0) {
+                    continue;
+                }
+                double idf = Math.log(1 + (live - p.live + 0.5) / (p.live + 0.5));
+                for (int i = 0; i < p.size; i++) {
+                    Entry entry = idx.entries.get(p.docs[i]);
+                    if (entry == null) {
+                        continue;
+                    }
+                    int tf = p.frequencies[i];
+                    double norm = tf + K1 * (1 - B + B * entry.length() / averageLength);
+                    scores.computeIfAbsent(p.docs[i], d -> new double[1])[0] += idf * tf * (K1 + 1) / norm;
+                    matched.computeIfAbsent(p.docs[i], d -> new LinkedHashSet<>()).add(term);
+                }
+            }
+
+            PriorityQueue<Map.Entry<Integer, double[]>> top = new PriorityQueue<>((x, y) -> Double.compare(x.getValue()[0], y.getValue()[0]));
+            for (Map.Entry<Integer, double[]> e : scores.entrySet()) {
+                top.add(e);
+                if (top.size() > topK) {
+                    top.poll();
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Map.Entry<Integer, double[]> e = top.poll();
+                hits.add(new Hit(idx.entries.get(e.getKey()).document(), e.getValue()[0], matched.get(e.getKey())));
+            }
+            return hits.reversed();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lowercased terms of {@code text} in order, with hyphen- or underscore-joined terms followed
+     * by their parts.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String raw : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            String token = strip(raw);
+            if (token.isEmpty()) {
+                continue;
+            }
+            tokens.add(token);
+            if (token.indexOf('-') >= 0 || token.indexOf('_') >= 0) {
+                for (String part : token.split("[-_]+")) {
+                    if (!part.isEmpty()) {
+                        tokens.add(part);
+                    }
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Whether a term looks like an identifier rather than a word: it contains a digit and is at
+     * least three characters long, e.g. {@code a12345} or {@code ord-7}.
+     */
+    public static boolean isIdentifier(String term) {
+        return term.length() >= 3 && term.chars().anyMatch(Character::isDigit);
+    }
+
+    public void save() {
+        if (directory == null || readOnly) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve(INDEX_FILE);
+            Path tmp = directory.resolve(INDEX_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(index.ids.size());
+                for (Entry entry : index.entries) {
+                    if (entry != null) {
+                        writeString(out, entry.document().getId());
+                        writeString(out, entry.document().getText());
+                        writeString(out, MAPPER.writeValueAsString(entry.document().getMetadata()));
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Saved lexical index with {} documents to {}", index.ids.size(), directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save lexical index to " + directory, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void reload() {
+        if (directory == null || !Files.exists(directory.resolve(INDEX_FILE))) {
+            return;
+        }
+        Index loaded = load();
+        lock.writeLock().lock();
+        try {
+            index = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void insert(Index idx, Document document) {
+        List<String> tokens = tokenize(document.getText());
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokens.forEach(t -> frequencies.merge(t, 1, Integer::sum));
+        int doc = idx.entries.size();
+        idx.entries.add(new Entry(document, tokens.size()));
+        idx.ids.put(document.getId(), doc);
+        idx.totalLength += tokens.size();
+        frequencies.forEach((term, tf) -> idx.postings.computeIfAbsent(term, t -> new Postings()).add(doc, tf));
+    }
+
+    /**
+     * Swaps in {@code document} when its id is indexed with the same text, leaving the postings as
+     * they are.
+     *
+     * @return false when the document is new or its text changed
+     */
+    private static boolean replaceMetadata(Index idx, Document document) {
+        Integer doc = idx.ids.get(document.getId());
+        if (doc == null) {
+            return false;
+        }
+        Entry entry = idx.entries.get(doc);
+        if (!Objects.equals(entry.document().getText(), document.getText())) {
+            return false;
+        }
+        idx.entries.set(doc, new Entry(document, entry.length()));
+        return true;
+    }
+
+    private static void remove(Index idx, String id) {
+        Integer doc = idx.ids.remove(id);
+        if (doc == null) {
+            return;
+        }
+        Entry entry = idx.entries.set(doc, null);
+        idx.totalLength -= entry.length();
+        for (String term : new LinkedHashSet<>(tokenize(entry.document().getText()))) {
+            Postings p = idx.postings.get(term);
+            if (p != null) {
+                p.live--;
+            }
+        }
+    }
+
+    /**
+     * Drops removed entries and renumbers the postings once at least half of the entries, and
+     * {@value #COMPACT_MIN_DEAD} or more, are removed ones.
+     */
+    private static void compactIfSparse(Index idx) {
+        int dead = idx.entries.size() - idx.ids.size();
+        if (dead < COMPACT_MIN_DEAD || dead < idx.ids.size()) {
+            return;
+        }
+        int[] remap = new int[idx.entries.size()];
+        List<Entry> live = new ArrayList<>(idx.ids.size());
+        for (int i = 0; i < remap.length; i++) {
+            Entry entry = idx.entries.get(i);
+            remap[i] = entry == null ? -1 : live.size();
+            if (entry != null) {
+                live.add(entry);
+            }
+        }
+        idx.entries.clear();
+        idx.entries.addAll(live);
+        idx.ids.replaceAll((id, doc) -> remap[doc]);
+        idx.postings.values().removeIf(p -> p.compact(remap) == 0);
+        logger.debug("Compacted lexical index: dropped {} removed documents, {} terms left", dead, idx.postings.size());
+    }
+
+    private Index load() {
+        Path file = directory.resolve(INDEX_FILE);
+        try (FileChannel channel = FileChannel.open(file)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != SNAPSHOT_MAGIC) {
+                throw new IllegalStateException("Not a lexical index: " + file);
+            }
+            int size = in.getInt();
+            Index idx = new Index();
+            for (int i = 0; i < size; i++) {
+                String id = readString(in);
+                String text = readString(in);
+                Map<String, Object> metadata = MAPPER.readValue(readString(in), new TypeReference<>() {});
+                insert(idx, Document.builder().id(id).text(text).metadata(metadata).build());
+            }
+            logger.info("Loaded lexical index with {} documents and {} terms from {}", size, idx.postings.size(), directory);
+            return idx;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load lexical index from " + file, e);
+        }
+    }
+
+    private static String strip(String token) {
+        int start = 0;
+        int end = token.length();
+        while (start < end && (token.charAt(start) == '-' || token.charAt(start) == '_')) start++;
+        while (end > start && (token.charAt(end - 1) == '-' || token.charAt(end - 1) == '_')) end--;
+        return token.substring(start, end);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Lexical index at " + directory + " is read-only");
+        }
+    }
+}
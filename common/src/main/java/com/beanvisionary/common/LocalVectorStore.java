@@ -0,0 +1,49 @@
+package com.beanvisionary.common;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A {@link VectorStore} held inside the JVM.
+ *
+ * Besides the standard operations it accepts documents with embeddings computed by the caller,
+ * so bulk loaders can embed in their own batches, and looks documents up by id.
+ */
+public interface LocalVectorStore extends VectorStore {
+
+    /**
+     * Adds or replaces documents using the given embeddings, in the same order as the documents.
+     */
+    void add(List<Document> documents, List<float[]> embeddings);
+
+    /**
+     * @return the stored documents among the given ids, in no particular order
+     */
+    List<Document> findById(List<String> ids);
+
+    /**
+     * @return the ids of the live documents whose metadata matches {@code filter}
+     */
+    List<String> findIds(Predicate<Map<String, Object>> filter);
+
+    /**
+     * @return the number of live documents
+     */
+    int size();
+
+    /**
+     * Persists the store, if it has a location to persist to.
+     */
+    default void save() {
+    }
+
+    /**
+     * Re-reads the store from its persisted state, picking up writes made by another process.
+     */
+    default void reload() {
+    }
+}
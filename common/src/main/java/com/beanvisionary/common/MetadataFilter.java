@@ -0,0 +1,115 @@
+package com.beanvisionary.common;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Evaluates Spring AI filter expressions against document metadata, for vector stores that
+ * filter in process.
+ *
+ * Numbers compare by value regardless of their boxed type, so {@code year >= 2020} matches an
+ * {@code Integer} or a {@code Long} 2021. Keys missing from the metadata only satisfy {@code NE}
+ * and {@code NIN}.
+ */
+public final class MetadataFilter {
+
+    private MetadataFilter() {}
+
+    /**
+     * @return a predicate over metadata; accepts everything when the expression is null
+     */
+    public static Predicate<Map<String, Object>> compile(Filter.Expression expression) {
+        if (expression == null) {
+            return metadata -> true;
+        }
+        return metadata -> test(expression, metadata);
+    }
+
+    private static boolean test(Filter.Operand operand, Map<String, Object> metadata) {
+        if (operand instanceof Filter.Group group) {
+            return test(group.content(), metadata);
+        }
+        if (!(operand instanceof Filter.Expression expression)) {
+            throw new IllegalArgumentException("Not a boolean expression: " + operand);
+        }
+        return switch (expression.type()) {
+            case AND -> test(expression.left(), metadata) && test(expression.right(), metadata);
+            case OR -> test(expression.left(), metadata) || test(expression.right(), metadata);
+            case NOT -> !test(expression.left(), metadata);
+            case EQ -> equal(actual(expression, metadata), expected(expression));
+            case NE -> !equal(actual(expression, metadata), expected(expression));
+            case GT -> compare(expression, metadata, c -> c > 0);
+            case GTE -> compare(expression, metadata, c -> c >= 0);
+            case LT -> compare(expression, metadata, c -> c < 0);
+            case LTE -> compare(expression, metadata, c -> c <= 0);
+            case IN -> contains(expected(expression), actual(expression, metadata));
+            case NIN -> !contains(expected(expression), actual(expression, metadata));
+        };
+    }
+
+    private static Object actual(Filter.Expression expression, Map<String, Object> metadata) {
+        if (!(expression.left() instanceof Filter.Key key)) {
+            throw new IllegalArgumentException("Expected a key on the left of " + expression);
+        }
+        return metadata.get(unquote(key.key()));
+    }
+
+    private static Object expected(Filter.Expression expression) {
+        if (!(expression.right() instanceof Filter.Value value)) {
+            throw new IllegalArgumentException("Expected a value on the right of " + expression);
+        }
+        return value.value();
+    }
+
+    private static String unquote(String key) {
+        if (key.length() >= 2 && (key.startsWith("'") && key.endsWith("'") || key.startsWith("\"") && key.endsWith("\""))) {
+            return key.substring(1, key.length() - 1);
+        }
+        return key;
+    }
+
+    private static boolean equal(Object actual, Object expected) {
+        if (actual instanceof Number a && expected instanceof Number e) {
+            return Double.compare(a.doubleValue(), e.doubleValue()) == 0;
+        }
+        if (actual != null && expected != null && actual.getClass() != expected.getClass()) {
+            return actual.toString().equals(expected.toString());
+        }
+        return Objects.equals(actual, expected);
+    }
+
+    /**
+     * Orders the metadata value against the expected one; values that cannot be ordered never match.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean compare(Filter.Expression expression, Map<String, Object> metadata, IntPredicate accept) {
+        Object actual = actual(expression, metadata);
+        Object expected = expected(expression);
+        if (actual instanceof Number a && expected instanceof Number e) {
+            return accept.test(Double.compare(a.doubleValue(), e.doubleValue()));
+        }
+        if (actual instanceof Comparable a && expected != null && actual.getClass() == expected.getClass()) {
+            return accept.test(a.compareTo(expected));
+        }
+        if (actual != null && expected instanceof String e) {
+            return accept.test(actual.toString().compareTo(e));
+        }
+        return false;
+    }
+
+    private static boolean contains(Object expected, Object actual) {
+        Collection<?> values = expected instanceof Collection<?> c ? c : List.of(expected);
+        for (Object value : values) {
+            if (equal(actual, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,90 @@
+package com.beanvisionary.common;
+
+import java.util.Arrays;
+
+/**
+ * Growable binary heap of node ids ordered by score, over primitive arrays, so a graph search can
+ * reuse one heap across queries instead of allocating an entry per visited node. The top is the
+ * highest score when {@code maxFirst} is set and the lowest otherwise.
+ */
+final class NodeHeap {
+
+    private final boolean maxFirst;
+    private int[] nodes;
+    private float[] keys;
+    private int size;
+
+    NodeHeap(int capacity, boolean maxFirst) {
+        this.maxFirst = maxFirst;
+        this.nodes = new int[Math.max(1, capacity)];
+        this.keys = new float[Math.max(1, capacity)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void push(int node, float score) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        float key = maxFirst ? -score : score;
+        int i = size++;
+        while (i > 0 && keys[(i - 1) / 2] > key) {
+            int parent = (i - 1) / 2;
+            nodes[i] = nodes[parent];
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+    }
+
+    int topNode() {
+        return nodes[0];
+    }
+
+    float topScore() {
+        return maxFirst ? -keys[0] : keys[0];
+    }
+
+    /**
+     * Removes the top node.
+     *
+     * @return its id
+     */
+    int pop() {
+        int top = nodes[0];
+        int last = --size;
+        int node = nodes[last];
+        float key = keys[last];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (keys[child] >= key) {
+                break;
+            }
+            nodes[i] = nodes[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+        return top;
+    }
+}
@@ -0,0 +1,163 @@
+package com.beanvisionary.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Fixed-dimension float vectors stored outside the Java heap, addressed by slot index.
+ *
+ * Slots live in segments of up to 16 MB, allocated as direct buffers or, when a file is given,
+ * mapped from consecutive regions of that file so the vectors persist without a separate write.
+ * Segments are only ever appended, so readers can score slots concurrently with a writer filling
+ * new ones. Opening an existing file maps the slots it already holds, so they can be read at once;
+ * a read-only instance maps just those.
+ */
+final class OffHeapVectors implements AutoCloseable {
+
+    private static final long SEGMENT_BYTES = 1L << 24;
+    private static final FloatDotProduct DOT = FloatDotProduct.create();
+    private static final ThreadLocal<float[][]> SCRATCH = ThreadLocal.withInitial(() -> new float[2][]);
+
+    private final int dimensions;
+    private final int perSegment;
+    private final FileChannel channel;
+    private final boolean readOnly;
+    private volatile FloatBuffer[] segments = new FloatBuffer[0];
+    private volatile ByteBuffer[] buffers = new ByteBuffer[0];
+
+    OffHeapVectors(int dimensions, Path file, boolean readOnly) throws IOException {
+        this.dimensions = dimensions;
+        this.perSegment = (int) Math.max(1, SEGMENT_BYTES / ((long) dimensions * Float.BYTES));
+        this.readOnly = readOnly;
+        if (file == null) {
+            this.channel = null;
+        } else {
+            this.channel = readOnly
+                    ? FileChannel.open(file, StandardOpenOption.READ)
+                    : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+            long slots = channel.size() / ((long) dimensions * Float.BYTES);
+            if (slots > 0) {
+                ensureCapacity((int) Math.min(Integer.MAX_VALUE, slots));
+            }
+        }
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    void set(int slot, float[] vector) {
+        if (readOnly) {
+            throw new IllegalStateException("Vectors are read-only");
+        }
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + vector.length);
+        }
+        ensureCapacity(slot + 1);
+        segments[slot / perSegment].put((slot % perSegment) * dimensions, vector);
+    }
+
+    float[] get(int slot) {
+        return get(slot, new float[dimensions]);
+    }
+
+    /**
+     * Copies the vector in {@code slot} into {@code into}, which must hold {@code dimensions} floats.
+     */
+    float[] get(int slot, float[] into) {
+        segments[slot / perSegment].get((slot % perSegment) * dimensions, into, 0, dimensions);
+        return into;
+    }
+
+    /**
+     * @return the number of slots mapped so far, at least the number the file held when opened
+     */
+    int capacity() {
+        return segments.length * perSegment;
+    }
+
+    /**
+     * Each slot is copied to a per-thread scratch array with one bulk read before scoring: per-element
+     * buffer reads go through bounds and scope checks that the JIT does not reliably inline.
+     */
+    float dot(int slot, float[] query) {
+        float[] a = scratch(0);
+        segments[slot / perSegment].get((slot % perSegment) * dimensions, a, 0, dimensions);
+        return dot(a, query, dimensions);
+    }
+
+    float dot(int slot, int other) {
+        float[] a = scratch(0);
+        float[] b = scratch(1);
+        segments[slot / perSegment].get((slot % perSegment) * dimensions, a, 0, dimensions);
+        segments[other / perSegment].get((other % perSegment) * dimensions, b, 0, dimensions);
+        return dot(a, b, dimensions);
+    }
+
+    private static float dot(float[] a, float[] b, int length) {
+        return DOT.dot(a, b, length);
+    }
+
+    private float[] scratch(int which) {
+        float[][] buffers = SCRATCH.get();
+        if (buffers[which] == null || buffers[which].length < dimensions) {
+            buffers[which] = new float[dimensions];
+        }
+        return buffers[which];
+    }
+
+    /**
+     * Flushes mapped segments to the file; a no-op for direct buffers.
+     */
+    void force() {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer instanceof MappedByteBuffer mapped && !readOnly) {
+                mapped.force();
+            }
+        }
+    }
+
+    private synchronized void ensureCapacity(int slots) {
+        int needed = (slots + perSegment - 1) / perSegment;
+        if (needed <= segments.length) {
+            return;
+        }
+        FloatBuffer[] grownSegments = Arrays.copyOf(segments, needed);
+        ByteBuffer[] grownBuffers = Arrays.copyOf(buffers, needed);
+        long segmentBytes = (long) perSegment * dimensions * Float.BYTES;
+        for (int i = segments.length; i < needed; i++) {
+            ByteBuffer buffer;
+            if (channel == null) {
+                buffer = ByteBuffer.allocateDirect((int) segmentBytes);
+            } else {
+                try {
+                    long offset = i * segmentBytes;
+                    buffer = readOnly
+                            ? channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(segmentBytes, channel.size() - offset))
+                            : channel.map(FileChannel.MapMode.READ_WRITE, offset, segmentBytes);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to map vector segment " + i, e);
+                }
+            }
+            grownBuffers[i] = buffer;
+            grownSegments[i] = buffer.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        }
+        buffers = grownBuffers;
+        segments = grownSegments;
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.beanvisionary.common;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Normalized vectors quantized to one signed byte per dimension, stored off-heap in contiguous
+ * 16 MB segments, a quarter of the size of the float vectors.
+ *
+ * Each vector is scaled by its own largest absolute component, so {@code code * scale} restores
+ * it to within half a quantization step per dimension. Slots are only appended: readers can scan
+ * the first {@code size} slots while a writer fills later ones.
+ */
+final class QuantizedVectors {
+
+    private static final long SEGMENT_BYTES = 1L << 24;
+    private static final int BLOCK_BYTES = 1 << 14;
+    private static final Int8DotProduct DOT = Int8DotProduct.create();
+
+    private final int dimensions;
+    private final int perSegment;
+    private final int blockRows;
+    private volatile ByteBuffer[] segments = new ByteBuffer[0];
+    private volatile float[] scales = new float[1024];
+
+    QuantizedVectors(int dimensions) {
+        this.dimensions = dimensions;
+        this.perSegment = (int) Math.max(1, SEGMENT_BYTES / dimensions);
+        this.blockRows = Math.max(1, BLOCK_BYTES / dimensions);
+    }
+
+    /**
+     * Whether scans run on the Vector API rather than scalar code.
+     */
+    static boolean vectorized() {
+        return DOT instanceof VectorizedInt8DotProduct;
+    }
+
+    void set(int slot, float[] vector) {
+        float max = 0;
+        for (float v : vector) {
+            max = Math.max(max, Math.abs(v));
+        }
+        float scale = max == 0 ? 1 : max / 127;
+        byte[] codes = new byte[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            codes[i] = (byte) Math.round(vector[i] / scale);
+        }
+        ensureCapacity(slot + 1);
+        segments[slot / perSegment].put((slot % perSegment) * dimensions, codes);
+        float[] current = scales;
+        if (slot >= current.length) {
+            current = Arrays.copyOf(current, Math.max(slot + 1, current.length * 2));
+        }
+        current[slot] = scale;
+        scales = current;
+    }
+
+    /**
+     * Scores slots {@code from} (inclusive) to {@code to} (exclusive) against a normalized query
+     * and offers those passing {@code accept} to {@code top}. Rows are copied a block at a time
+     * into a heap array, which the Vector API can load from.
+     */
+    void scan(int from, int to, float[] query, TopK top, IntPredicate accept) {
+        ByteBuffer[] segs = segments;
+        float[] scale = scales;
+        byte[] block = new byte[blockRows * dimensions];
+        int slot = from;
+        while (slot < to) {
+            int inSegment = slot % perSegment;
+            int rows = Math.min(blockRows, Math.min(to - slot, perSegment - inSegment));
+            segs[slot / perSegment].get(inSegment * dimensions, block, 0, rows * dimensions);
+            for (int r = 0; r < rows; r++, slot++) {
+                float score = scale[slot] * DOT.dot(block, r * dimensions, query);
+                if (score > top.threshold() && accept.test(slot)) {
+                    top.offer(slot, score);
+                }
+            }
+        }
+    }
+
+    private synchronized void ensureCapacity(int slots) {
+        int needed = (slots + perSegment - 1) / perSegment;
+        if (needed <= segments.length) {
+            return;
+        }
+        ByteBuffer[] grown = Arrays.copyOf(segments, needed);
+        for (int i = segments.length; i < needed; i++) {
+            grown[i] = ByteBuffer.allocateDirect(perSegment * dimensions);
+        }
+        segments = grown;
+    }
+}
@@ -0,0 +1,20 @@
+package com.beanvisionary.common;
+
+/**
+ * Record keys for the chat pipeline topics.
+ *
+ * Every record on {@code ai.requests.v1}, {@code ai.responses.v1}, {@code ai.tool.calls.v1} and
+ * {@code ai.tool.results.v1} is keyed by its session id, so Kafka's default partitioner sends all
+ * records of a conversation to the same partition of each topic and they are consumed in order,
+ * however many partitions and consumers there are. Records without a session share the
+ * {@link #DEFAULT_SESSION} key.
+ */
+public final class SessionKeys {
+    private SessionKeys() {}
+
+    public static final String DEFAULT_SESSION = "default";
+
+    public static String of(String sessionId) {
+        return sessionId == null || sessionId.isBlank() ? DEFAULT_SESSION : sessionId;
+    }
+}
@@ -0,0 +1,22 @@
+package com.beanvisionary.common;
+
+/**
+ * One coalesced piece of a streamed answer, published to {@code ai.stream.v1}. Carries only what a
+ * client needs to render it; the final answer is still a {@link ChatResponse} on
+ * {@code ai.responses.v1}.
+ *
+ * @param requestId The request being answered
+ * @param sessionId The session to deliver the frame to
+ * @param kind Whether the text is answer text, model reasoning or the whole answer so far
+ * @param seq Position of a {@link Kind#DELTA} frame within its answer, starting at 0
+ * @param text The frame's text
+ */
+public record StreamFrame(
+        String requestId,
+        String sessionId,
+        Kind kind,
+        int seq,
+        String text
+) {
+    public enum Kind { DELTA, THINKING, CUMULATIVE }
+}
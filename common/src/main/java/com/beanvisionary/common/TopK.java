@@ -0,0 +1,73 @@
+package com.beanvisionary.common;
+
+import java.util.Arrays;
+
+/**
+ * The {@code k} highest-scoring slots seen so far, as a min-heap over primitive arrays so a scan
+ * over millions of slots allocates nothing per slot.
+ */
+final class TopK {
+
+    private final int[] slots;
+    private final float[] scores;
+    private int size;
+
+    TopK(int k) {
+        this.slots = new int[Math.max(1, k)];
+        this.scores = new float[Math.max(1, k)];
+    }
+
+    /**
+     * @return the score a slot must beat to be kept
+     */
+    float threshold() {
+        return size < slots.length ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    void offer(int slot, float score) {
+        if (size < slots.length) {
+            int i = size++;
+            while (i > 0 && scores[(i - 1) / 2] > score) {
+                int parent = (i - 1) / 2;
+                slots[i] = slots[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            slots[i] = slot;
+            scores[i] = score;
+        } else if (score > scores[0]) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && scores[child + 1] < scores[child]) {
+                    child++;
+                }
+                if (scores[child] >= score) {
+                    break;
+                }
+                slots[i] = slots[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            slots[i] = slot;
+            scores[i] = score;
+        }
+    }
+
+    TopK merge(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.slots[i], other.scores[i]);
+        }
+        return this;
+    }
+
+    /**
+     * @return the kept slots in no particular order
+     */
+    int[] slots() {
+        return Arrays.copyOf(slots, size);
+    }
+}
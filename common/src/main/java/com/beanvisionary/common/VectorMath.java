@@ -0,0 +1,22 @@
+package com.beanvisionary.common;
+
+/**
+ * Vector arithmetic shared by the in-process stores and the caches that compare embeddings.
+ */
+public final class VectorMath {
+
+    private VectorMath() {}
+
+    /**
+     * @return {@code v} scaled to unit length, or a zero vector when {@code v} has no length
+     */
+    public static float[] normalize(float[] v) {
+        double norm = 0;
+        for (float x : v) norm += x * x;
+        norm = Math.sqrt(norm);
+        float[] out = new float[v.length];
+        if (norm == 0) return out;
+        for (int i = 0; i < v.length; i++) out[i] = (float) (v[i] / norm);
+        return out;
+    }
+}
@@ -0,0 +1,141 @@
+package com.beanvisionary.common;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+/**
+ * Snapshot files of the in-process vector stores.
+ *
+ * A store directory holds the full-precision vectors in {@code vectors.f32}, mapped by
+ * {@link OffHeapVectors} and so written as they are added, and an index file with the store's own
+ * structure and its documents. The index file starts with a magic number and the vector
+ * dimensions, is written to a temporary file that replaces the previous one atomically, and is
+ * read back as a buffered stream. A store that compacts its vectors writes them to
+ * {@code vectors.f32.compact} and moves that over {@code vectors.f32} just before the index that
+ * refers to the new slots replaces the old one.
+ */
+final class VectorSnapshot {
+
+    static final String VECTORS_FILE = "vectors.f32";
+    static final String COMPACT_VECTORS_FILE = VECTORS_FILE + ".compact";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private VectorSnapshot() {}
+
+    /**
+     * Opens the vectors of a store, in {@code directory} when it has one and off-heap memory otherwise.
+     */
+    static OffHeapVectors openVectors(Path directory, int dimensions, boolean readOnly) {
+        try {
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            return new OffHeapVectors(dimensions, directory != null ? directory.resolve(VECTORS_FILE) : null, readOnly);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open vectors in " + directory, e);
+        }
+    }
+
+    /**
+     * Opens empty vectors to copy the live slots of a store into, in {@code directory} when it has
+     * one (discarding what an interrupted compaction left behind) and off-heap memory otherwise.
+     */
+    static OffHeapVectors openCompactVectors(Path directory, int dimensions) {
+        try {
+            if (directory == null) {
+                return new OffHeapVectors(dimensions, null, false);
+            }
+            Path file = directory.resolve(COMPACT_VECTORS_FILE);
+            Files.deleteIfExists(file);
+            return new OffHeapVectors(dimensions, file, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open compacted vectors in " + directory, e);
+        }
+    }
+
+    /**
+     * Writes {@code file} with the header followed by what {@code body} writes, replacing the previous
+     * snapshot only once it is complete.
+     */
+    static void write(Path file, int magic, int dimensions, Writer body) throws IOException {
+        write(file, magic, dimensions, body, false);
+    }
+
+    /**
+     * Like {@link #write(Path, int, int, Writer)}, first moving {@code vectors.f32.compact} over
+     * {@code vectors.f32} when {@code compactedVectors} is set, so the two files are replaced
+     * together once the new index is complete.
+     */
+    static void write(Path file, int magic, int dimensions, Writer body, boolean compactedVectors) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), BUFFER_BYTES))) {
+            out.writeInt(magic);
+            out.writeInt(dimensions);
+            body.write(out);
+        }
+        if (compactedVectors) {
+            Path directory = file.getParent();
+            Files.move(directory.resolve(COMPACT_VECTORS_FILE), directory.resolve(VECTORS_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Opens {@code file} for reading past its magic number; the caller reads the dimensions next.
+     *
+     * @throws IllegalStateException if the file does not start with {@code magic}
+     */
+    static DataInputStream open(Path file, int magic, String kind) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_BYTES));
+        if (in.readInt() != magic) {
+            in.close();
+            throw new IllegalStateException("Not " + kind + ": " + file);
+        }
+        return in;
+    }
+
+    static void writeDocument(DataOutputStream out, Document document) throws IOException {
+        writeString(out, document.getId());
+        writeString(out, document.getText());
+        writeString(out, MAPPER.writeValueAsString(document.getMetadata()));
+    }
+
+    static Document readDocument(DataInputStream in) throws IOException {
+        String id = readString(in);
+        String text = readString(in);
+        Map<String, Object> metadata = MAPPER.readValue(readString(in), new TypeReference<>() {});
+        return Document.builder().id(id).text(text).metadata(metadata).build();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,17 @@
+package com.beanvisionary.common;
+
+import java.time.Instant;
+
+/**
+ * Published by vector-service after it writes to a collection, so consumers holding
+ * results derived from that collection can invalidate them.
+ *
+ * @param collection The collection that was written to
+ * @param documentCount The number of documents written
+ * @param ts When the write completed
+ */
+public record VectorStoreChanged(
+        String collection,
+        int documentCount,
+        Instant ts
+) {}
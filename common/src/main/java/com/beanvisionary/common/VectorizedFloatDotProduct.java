@@ -0,0 +1,36 @@
+package com.beanvisionary.common;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link FloatDotProduct} on the JDK Vector API, accumulating one lane-width at a time with fused
+ * multiply-add. Only loaded after {@link FloatDotProduct#create()} has found the incubator module.
+ */
+final class VectorizedFloatDotProduct implements FloatDotProduct {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public float dot(float[] a, float[] b, int length) {
+        int lanes = FLOATS.length();
+        int bound = FLOATS.loopBound(length);
+        FloatVector a0 = FloatVector.zero(FLOATS);
+        FloatVector a1 = FloatVector.zero(FLOATS);
+        int i = 0;
+        // two accumulators hide the fma latency
+        for (; i + lanes < bound; i += 2 * lanes) {
+            a0 = FloatVector.fromArray(FLOATS, a, i).fma(FloatVector.fromArray(FLOATS, b, i), a0);
+            a1 = FloatVector.fromArray(FLOATS, a, i + lanes).fma(FloatVector.fromArray(FLOATS, b, i + lanes), a1);
+        }
+        for (; i < bound; i += lanes) {
+            a0 = FloatVector.fromArray(FLOATS, a, i).fma(FloatVector.fromArray(FLOATS, b, i), a0);
+        }
+        float sum = a0.add(a1).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,53 @@
+package com.beanvisionary.common;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link Int8DotProduct} on the JDK Vector API: each step widens one lane-width of int8 codes to
+ * floats and accumulates with fused multiply-add. Only loaded after {@link Int8DotProduct#create()}
+ * has found the incubator module.
+ */
+final class VectorizedInt8DotProduct implements Int8DotProduct {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES = FLOATS.length() >= 8
+            ? VectorSpecies.of(byte.class, VectorShape.forBitSize(FLOATS.length() * Byte.SIZE))
+            : null;
+
+    /**
+     * Narrower float vectors would need byte vectors below the smallest supported shape.
+     */
+    static boolean supported() {
+        return BYTES != null;
+    }
+
+    @Override
+    public float dot(byte[] codes, int offset, float[] query) {
+        int lanes = FLOATS.length();
+        int bound = FLOATS.loopBound(query.length);
+        FloatVector a0 = FloatVector.zero(FLOATS);
+        FloatVector a1 = FloatVector.zero(FLOATS);
+        int i = 0;
+        // two accumulators hide the fma latency
+        for (; i + lanes < bound; i += 2 * lanes) {
+            a0 = widen(codes, offset + i).fma(FloatVector.fromArray(FLOATS, query, i), a0);
+            a1 = widen(codes, offset + i + lanes).fma(FloatVector.fromArray(FLOATS, query, i + lanes), a1);
+        }
+        for (; i < bound; i += lanes) {
+            a0 = widen(codes, offset + i).fma(FloatVector.fromArray(FLOATS, query, i), a0);
+        }
+        float sum = a0.add(a1).reduceLanes(VectorOperators.ADD);
+        for (; i < query.length; i++) {
+            sum += codes[offset + i] * query[i];
+        }
+        return sum;
+    }
+
+    private static FloatVector widen(byte[] codes, int offset) {
+        return (FloatVector) ByteVector.fromArray(BYTES, codes, offset).convertShape(VectorOperators.B2F, FLOATS, 0);
+    }
+}
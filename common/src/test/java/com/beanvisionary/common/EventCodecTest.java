@@ -0,0 +1,251 @@
+package com.beanvisionary.common;
+
+import beanvisionary.events.v1.Events;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the hand-written codec against classes generated from {@code events.proto}: what
+ * {@link EventCodec} writes must parse into the generated message with the same fields, and what
+ * the generated message writes must decode to the original value.
+ */
+class EventCodecTest {
+
+    private static final Instant TS = Instant.ofEpochSecond(1_759_745_730L, 123_456_789);
+
+    @Test
+    void chatRequestMatchesProto() throws IOException {
+        ChatRequest request = new ChatRequest("req-1", "user-1", "session-1", "Where is order A12345?", struct(), TS);
+
+        Events.ChatRequest parsed = Events.ChatRequest.parseFrom(EventCodec.encode(EventCodec.Type.CHAT_REQUEST, request));
+        assertEquals("req-1", parsed.getRequestId());
+        assertEquals("user-1", parsed.getUserId());
+        assertEquals("session-1", parsed.getSessionId());
+        assertEquals("Where is order A12345?", parsed.getQuery());
+        assertEquals(struct(), fromProto(parsed.getMetadata()));
+        assertEquals(TS, instant(parsed.getTs()));
+
+        Events.ChatRequest proto = Events.ChatRequest.newBuilder()
+                .setRequestId("req-1").setUserId("user-1").setSessionId("session-1").setQuery("Where is order A12345?")
+                .setMetadata(toProto(struct())).setTs(timestamp(TS))
+                .build();
+        assertEquals(request, EventCodec.decode(EventCodec.Type.CHAT_REQUEST, proto.toByteArray()));
+    }
+
+    @Test
+    void chatResponseMatchesProto() throws IOException {
+        List<ToolCall> toolCalls = List.of(new ToolCall("lookupOrder", Map.of("orderId", "A12345"), "req-1"),
+                new ToolCall("launchCampaign", Map.of("budget", 500)));
+        ChatResponse response = new ChatResponse("req-1", "user-1", "session-1", "Shipped.", toolCalls,
+                List.of("doc-1", "doc-2"), TS);
+
+        Events.ChatResponse parsed = Events.ChatResponse.parseFrom(EventCodec.encode(EventCodec.Type.CHAT_RESPONSE, response));
+        assertEquals("Shipped.", parsed.getAnswer());
+        assertEquals(2, parsed.getToolCallsCount());
+        assertEquals("lookupOrder", parsed.getToolCalls(0).getName());
+        assertEquals(Map.of("orderId", "A12345"), fromProto(parsed.getToolCalls(0).getArgs()));
+        assertEquals("req-1", parsed.getToolCalls(0).getRequestId());
+        assertFalse(parsed.getToolCalls(1).hasRequestId());
+        assertEquals(List.of("doc-1", "doc-2"), parsed.getCitationsList());
+        assertEquals(TS, instant(parsed.getTs()));
+
+        Events.ChatResponse.Builder proto = Events.ChatResponse.newBuilder()
+                .setRequestId("req-1").setUserId("user-1").setSessionId("session-1").setAnswer("Shipped.")
+                .addAllCitations(List.of("doc-1", "doc-2")).setTs(timestamp(TS));
+        proto.addToolCallsBuilder().setName("lookupOrder").setArgs(toProto(Map.of("orderId", "A12345"))).setRequestId("req-1");
+        proto.addToolCallsBuilder().setName("launchCampaign").setArgs(toProto(Map.of("budget", 500)));
+        assertEquals(response, EventCodec.decode(EventCodec.Type.CHAT_RESPONSE, proto.build().toByteArray()));
+    }
+
+    @Test
+    void chatResponseWithoutListsRoundTrips() throws IOException {
+        ChatResponse response = new ChatResponse("req-1", null, "session-1", "Error", null, null, null);
+
+        byte[] encoded = EventCodec.encode(EventCodec.Type.CHAT_RESPONSE, response);
+        Events.ChatResponse parsed = Events.ChatResponse.parseFrom(encoded);
+        assertFalse(parsed.hasUserId());
+        assertFalse(parsed.hasTs());
+        assertEquals(0, parsed.getToolCallsCount());
+        assertEquals(response, EventCodec.decode(EventCodec.Type.CHAT_RESPONSE, encoded));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StreamFrame.Kind.class)
+    void streamFrameMatchesProto(StreamFrame.Kind kind) throws IOException {
+        StreamFrame frame = new StreamFrame("req-1", "session-1", kind, 7, "partial text");
+
+        Events.StreamFrame parsed = Events.StreamFrame.parseFrom(EventCodec.encode(EventCodec.Type.STREAM_FRAME, frame));
+        assertEquals(kind.name(), parsed.getKind().name());
+        assertEquals(7, parsed.getSeq());
+        assertEquals("partial text", parsed.getText());
+
+        Events.StreamFrame proto = Events.StreamFrame.newBuilder()
+                .setRequestId("req-1").setSessionId("session-1")
+                .setKind(Events.StreamFrame.Kind.valueOf(kind.name())).setSeq(7).setText("partial text")
+                .build();
+        assertEquals(frame, EventCodec.decode(EventCodec.Type.STREAM_FRAME, proto.toByteArray()));
+    }
+
+    @Test
+    void toolCallMatchesProto() throws IOException {
+        Map<String, Object> call = Map.of("requestId", "req-1", "sessionId", "session-1", "tool", "lookupOrder", "args", struct());
+
+        Events.ToolCallEvent parsed = Events.ToolCallEvent.parseFrom(EventCodec.encode(EventCodec.Type.TOOL_CALL, call));
+        assertEquals("lookupOrder", parsed.getTool());
+        assertEquals(struct(), fromProto(parsed.getArgs()));
+
+        Events.ToolCallEvent proto = Events.ToolCallEvent.newBuilder()
+                .setRequestId("req-1").setSessionId("session-1").setTool("lookupOrder").setArgs(toProto(struct()))
+                .build();
+        assertEquals(call, EventCodec.decode(EventCodec.Type.TOOL_CALL, proto.toByteArray()));
+    }
+
+    @Test
+    void toolResultMatchesProto() throws IOException {
+        Map<String, Object> result = Map.of("requestId", "req-1", "sessionId", "session-1", "tool", "lookupOrder",
+                "args", Map.of("orderId", "A12345"), "result", struct());
+
+        Events.ToolResultEvent parsed = Events.ToolResultEvent.parseFrom(EventCodec.encode(EventCodec.Type.TOOL_RESULT, result));
+        assertEquals(struct(), fromProto(parsed.getResult()));
+        assertFalse(parsed.hasError());
+
+        Events.ToolResultEvent proto = Events.ToolResultEvent.newBuilder()
+                .setRequestId("req-1").setSessionId("session-1").setTool("lookupOrder")
+                .setArgs(toProto(Map.of("orderId", "A12345"))).setResult(toProto(struct()))
+                .build();
+        assertEquals(result, EventCodec.decode(EventCodec.Type.TOOL_RESULT, proto.toByteArray()));
+    }
+
+    @Test
+    void failedToolResultMatchesProto() throws IOException {
+        Map<String, Object> result = Map.of("requestId", "req-1", "sessionId", "session-1", "tool", "lookupOrder",
+                "args", Map.of(), "error", "no response within 30000 ms");
+
+        Events.ToolResultEvent parsed = Events.ToolResultEvent.parseFrom(EventCodec.encode(EventCodec.Type.TOOL_RESULT, result));
+        assertTrue(parsed.hasError());
+        assertFalse(parsed.hasResult());
+        assertEquals("no response within 30000 ms", parsed.getError());
+        assertEquals(result, EventCodec.decode(EventCodec.Type.TOOL_RESULT, parsed.toByteArray()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(EventCodec.Type.class)
+    void absentFieldsStayAbsent(EventCodec.Type type) throws IOException {
+        Object empty = switch (type) {
+            case CHAT_REQUEST -> new ChatRequest(null, null, null, null, null, null);
+            case CHAT_RESPONSE -> new ChatResponse(null, null, null, null, null, null, null);
+            case TOOL_CALL, TOOL_RESULT -> Map.of();
+            case STREAM_FRAME -> new StreamFrame(null, null, StreamFrame.Kind.DELTA, 0, null);
+        };
+        byte[] encoded = EventCodec.encode(type, empty);
+        assertEquals(0, encoded.length);
+        assertEquals(empty, EventCodec.decode(type, encoded));
+    }
+
+    @Test
+    void defaultScalarsAreLeftOut() throws IOException {
+        Map<String, Object> metadata = Map.of("", "empty key");
+        ChatRequest request = new ChatRequest("req-1", null, null, null, metadata, Instant.EPOCH);
+
+        byte[] encoded = EventCodec.encode(EventCodec.Type.CHAT_REQUEST, request);
+        Events.ChatRequest proto = Events.ChatRequest.newBuilder()
+                .setRequestId("req-1").setMetadata(toProto(metadata)).setTs(timestamp(Instant.EPOCH))
+                .build();
+        assertArrayEquals(proto.toByteArray(), encoded);
+        assertEquals(request, EventCodec.decode(EventCodec.Type.CHAT_REQUEST, encoded));
+    }
+
+    /**
+     * A struct with every kind of {@code Value}, including integers of both widths and nested nulls.
+     */
+    private static Map<String, Object> struct() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("name", "Jane Doe");
+        nested.put("missing", null);
+        Map<String, Object> struct = new LinkedHashMap<>();
+        struct.put("int", 42);
+        struct.put("long", 5_000_000_000L);
+        struct.put("double", 0.75);
+        struct.put("negative", -3);
+        struct.put("flag", true);
+        struct.put("text", "ünïcödé");
+        struct.put("null", null);
+        struct.put("nested", nested);
+        struct.put("list", Arrays.asList(1, "two", null, Map.of("three", 3.5)));
+        return struct;
+    }
+
+    private static Events.Struct toProto(Map<String, ?> map) {
+        Events.Struct.Builder struct = Events.Struct.newBuilder();
+        map.forEach((key, value) -> struct.addFieldsBuilder().setKey(key).setValue(toProto(value)));
+        return struct.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Events.Value toProto(Object value) {
+        Events.Value.Builder v = Events.Value.newBuilder();
+        switch (value) {
+            case null -> v.setNullValue(true);
+            case Boolean b -> v.setBoolValue(b);
+            case Integer i -> v.setIntValue(i);
+            case Long l -> v.setIntValue(l);
+            case Number n -> v.setDoubleValue(n.doubleValue());
+            case String s -> v.setStringValue(s);
+            case Map<?, ?> m -> v.setStructValue(toProto((Map<String, ?>) m));
+            case List<?> list -> {
+                Events.ListValue.Builder values = Events.ListValue.newBuilder();
+                list.forEach(item -> values.addValues(toProto(item)));
+                v.setListValue(values);
+            }
+            default -> throw new IllegalArgumentException(value.getClass().getName());
+        }
+        return v.build();
+    }
+
+    private static Map<String, Object> fromProto(Events.Struct struct) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (Events.Field field : struct.getFieldsList()) {
+            map.put(field.getKey(), fromProto(field.getValue()));
+        }
+        return map;
+    }
+
+    private static Object fromProto(Events.Value value) {
+        return switch (value.getKindCase()) {
+            case NULL_VALUE, KIND_NOT_SET -> null;
+            case BOOL_VALUE -> value.getBoolValue();
+            case INT_VALUE -> value.getIntValue() == (int) value.getIntValue()
+                    ? (Object) (int) value.getIntValue() : (Object) value.getIntValue();
+            case DOUBLE_VALUE -> value.getDoubleValue();
+            case STRING_VALUE -> value.getStringValue();
+            case STRUCT_VALUE -> fromProto(value.getStructValue());
+            case LIST_VALUE -> {
+                List<Object> list = new ArrayList<>();
+                value.getListValue().getValuesList().forEach(item -> list.add(fromProto(item)));
+                yield list;
+            }
+        };
+    }
+
+    private static Events.Timestamp timestamp(Instant ts) {
+        return Events.Timestamp.newBuilder().setSeconds(ts.getEpochSecond()).setNanos(ts.getNano()).build();
+    }
+
+    private static Instant instant(Events.Timestamp ts) {
+        return Instant.ofEpochSecond(ts.getSeconds(), ts.getNanos());
+    }
+}
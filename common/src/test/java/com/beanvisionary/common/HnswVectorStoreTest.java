@@ -0,0 +1,154 @@
+package com.beanvisionary.common;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks HNSW search against an exact scan over seeded random vectors, after inserts, deletes and
+ * replacements, compaction, and a save and reload.
+ */
+class HnswVectorStoreTest {
+
+    private static final int DIMENSIONS = 32;
+    private static final int TOP_K = 10;
+    private static final double MIN_RECALL = 0.95;
+    private static final HnswVectorStore.Options OPTIONS = new HnswVectorStore.Options(16, 100, 64);
+
+    private final Random random = new Random(42);
+    private final float[][] queries = TestVectors.gaussian(random, 50, DIMENSIONS);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recallMatchesExactScan() throws Exception {
+        float[][] vectors = TestVectors.gaussian(random, 2000, DIMENSIONS);
+        try (HnswVectorStore store = store(queries, null, false)) {
+            store.add(TestVectors.documents(0, vectors.length), List.of(vectors));
+
+            assertEquals(vectors.length, store.size());
+            assertRecall(store, vectors, 0);
+        }
+    }
+
+    @Test
+    void deletedAndReplacedDocumentsAreNotReturned() throws Exception {
+        float[][] vectors = TestVectors.gaussian(random, 1000, DIMENSIONS);
+        float[][] replacements = TestVectors.gaussian(random, 100, DIMENSIONS);
+        float[][] current = vectors.clone();
+        System.arraycopy(replacements, 0, current, 100, replacements.length);
+        // queries 0-199 are the original vectors of the deleted and replaced documents, 200-299 the replacements
+        float[][] byVector = Arrays.copyOf(vectors, 300);
+        System.arraycopy(replacements, 0, byVector, 200, replacements.length);
+        try (HnswVectorStore store = store(byVector, null, false)) {
+            store.add(TestVectors.documents(0, vectors.length), List.of(vectors));
+            store.delete(IntStream.range(0, 100).mapToObj(TestVectors::id).toList());
+            store.add(TestVectors.documents(100, 200), List.of(replacements));
+
+            assertEquals(900, store.size());
+            assertTrue(store.findById(List.of(TestVectors.id(0))).isEmpty());
+            for (int i = 0; i < 200; i++) {
+                for (Document document : store.similaritySearch(TestVectors.query(i, TOP_K))) {
+                    boolean stale = document.getId().equals(TestVectors.id(i)) && document.getScore() > 0.99;
+                    assertFalse(stale, "old vector of " + document.getId() + " returned");
+                }
+            }
+            for (int i = 0; i < replacements.length; i++) {
+                Document top = store.similaritySearch(TestVectors.query(200 + i, TOP_K)).get(0);
+                assertEquals(TestVectors.id(100 + i), top.getId());
+                assertEquals(1.0, top.getScore(), 1e-4);
+            }
+        }
+        try (HnswVectorStore store = store(queries, null, false)) {
+            store.add(TestVectors.documents(0, vectors.length), List.of(vectors));
+            store.delete(IntStream.range(0, 100).mapToObj(TestVectors::id).toList());
+            store.add(TestVectors.documents(100, 200), List.of(replacements));
+
+            assertRecall(store, current, 100);
+        }
+    }
+
+    @Test
+    void saveAndReloadKeepsTheGraph() throws Exception {
+        float[][] vectors = TestVectors.gaussian(random, 1000, DIMENSIONS);
+        List<List<String>> before = new ArrayList<>();
+        try (HnswVectorStore store = store(queries, directory, false)) {
+            store.add(TestVectors.documents(0, vectors.length), List.of(vectors));
+            store.delete(IntStream.range(0, 100).mapToObj(TestVectors::id).toList());
+            store.save();
+            for (int q = 0; q < queries.length; q++) {
+                before.add(TestVectors.ids(store.similaritySearch(TestVectors.query(q, TOP_K))));
+            }
+        }
+
+        try (HnswVectorStore reader = store(queries, directory, true)) {
+            assertEquals(900, reader.size());
+            assertTrue(reader.findById(List.of(TestVectors.id(0))).isEmpty());
+            for (int q = 0; q < queries.length; q++) {
+                assertEquals(before.get(q), TestVectors.ids(reader.similaritySearch(TestVectors.query(q, TOP_K))));
+            }
+
+            float[][] more = TestVectors.gaussian(random, 200, DIMENSIONS);
+            try (HnswVectorStore writer = store(queries, directory, false)) {
+                assertEquals(900, writer.size());
+                writer.add(TestVectors.documents(vectors.length, vectors.length + more.length), List.of(more));
+            }
+            reader.reload();
+
+            float[][] all = Arrays.copyOf(vectors, vectors.length + more.length);
+            System.arraycopy(more, 0, all, vectors.length, more.length);
+            assertEquals(1100, reader.size());
+            assertRecall(reader, all, 100);
+        }
+    }
+
+    @Test
+    void saveCompactsMostlyDeletedGraph() throws Exception {
+        float[][] vectors = TestVectors.gaussian(random, 2200, DIMENSIONS);
+        try (HnswVectorStore store = store(queries, directory, false)) {
+            store.add(TestVectors.documents(0, vectors.length), List.of(vectors));
+            store.delete(IntStream.range(0, 1200).mapToObj(TestVectors::id).toList());
+            store.save();
+
+            assertEquals(1000, store.size());
+            assertRecall(store, vectors, 1200);
+            assertFalse(Files.exists(directory.resolve(VectorSnapshot.COMPACT_VECTORS_FILE)));
+
+            float[][] more = TestVectors.gaussian(random, 100, DIMENSIONS);
+            store.add(TestVectors.documents(vectors.length, vectors.length + more.length), List.of(more));
+            vectors = Arrays.copyOf(vectors, vectors.length + more.length);
+            System.arraycopy(more, 0, vectors, 2200, more.length);
+            assertRecall(store, vectors, 1200);
+        }
+
+        try (HnswVectorStore reader = store(queries, directory, true)) {
+            assertEquals(1100, reader.size());
+            assertRecall(reader, vectors, 1200);
+        }
+    }
+
+    private HnswVectorStore store(float[][] queries, Path directory, boolean readOnly) {
+        return new HnswVectorStore(new TestVectors.QueryEmbeddings(queries), OPTIONS, directory, readOnly);
+    }
+
+    /**
+     * Asserts the recall against an exact scan over the vectors from index {@code firstLive} on.
+     */
+    private void assertRecall(HnswVectorStore store, float[][] vectors, int firstLive) {
+        double recall = TestVectors.recall(store, vectors, queries, TOP_K, i -> i >= firstLive);
+        assertTrue(recall >= MIN_RECALL, "recall " + recall);
+    }
+}
@@ -0,0 +1,177 @@
+package com.beanvisionary.common;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks tokenization, BM25 scores and ranking, deletes and replacements, and that compaction
+ * renumbers the postings without changing any result.
+ */
+class LexicalIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void tokenizeKeepsJoinedTermsAndTheirParts() {
+        assertEquals(List.of("order", "ord-1234", "ord", "1234", "ships_to", "ships", "to", "berlin"),
+                LexicalIndex.tokenize("Order ORD-1234, ships_to -Berlin-!"));
+        assertEquals(List.of(), LexicalIndex.tokenize(null));
+    }
+
+    @Test
+    void identifiersContainADigit() {
+        assertTrue(LexicalIndex.isIdentifier("a12345"));
+        assertTrue(LexicalIndex.isIdentifier("ord-7"));
+        assertFalse(LexicalIndex.isIdentifier("order"));
+        assertFalse(LexicalIndex.isIdentifier("a1"));
+    }
+
+    @Test
+    void scoresFollowBm25() {
+        LexicalIndex index = new LexicalIndex(null, false);
+        index.add(List.of(
+                document("short", "apple apple banana"),
+                document("long", "apple banana cherry date elderberry fig"),
+                document("other", "cherry")));
+
+        List<LexicalIndex.Hit> hits = index.search("apple", 10);
+
+        assertEquals(List.of("short", "long"), ids(hits));
+        // two of three documents contain the term; average length 10 / 3
+        double idf = Math.log(1 + (3 - 2 + 0.5) / (2 + 0.5));
+        double averageLength = 10.0 / 3;
+        assertEquals(idf * 2 * 2.2 / (2 + 1.2 * (0.25 + 0.75 * 3 / averageLength)), hits.get(0).score(), 1e-9);
+        assertEquals(idf * 2.2 / (1 + 1.2 * (0.25 + 0.75 * 6 / averageLength)), hits.get(1).score(), 1e-9);
+    }
+
+    @Test
+    void rareTermsRankHigherAndMatchesAreReported() {
+        LexicalIndex index = new LexicalIndex(null, false);
+        index.add(List.of(
+                document("a", "order status for order A12345"),
+                document("b", "order status"),
+                document("c", "order history"),
+                document("d", "shipping status update")));
+
+        List<LexicalIndex.Hit> hits = index.search("status of A12345", 10);
+
+        assertEquals(List.of("a", "b", "d"), ids(hits));
+        assertEquals(Set.of("status", "a12345"), hits.get(0).matched());
+        assertEquals(Set.of("status"), hits.get(1).matched());
+        assertEquals(List.of("a"), ids(index.search("status of A12345", 1)));
+        assertEquals(List.of(), index.search("!!", 10));
+    }
+
+    @Test
+    void deletedDocumentsAreNotScored() {
+        LexicalIndex index = new LexicalIndex(null, false);
+        index.add(List.of(document("a", "order A12345"), document("b", "order B67890")));
+        index.delete(List.of("a", "missing"));
+
+        assertEquals(1, index.size());
+        assertEquals(List.of(), index.search("A12345", 10));
+        assertEquals(List.of("b"), ids(index.search("order", 10)));
+        assertScoresEqual(fresh(document("b", "order B67890")).search("order", 10), index.search("order", 10));
+    }
+
+    @Test
+    void replacingTextReindexesAndReplacingMetadataKeepsPostings() {
+        LexicalIndex index = new LexicalIndex(null, false);
+        index.add(List.of(document("a", "order A12345"), document("b", "order B67890")));
+
+        index.add(List.of(Document.builder().id("a").text("order A12345").metadata(Map.of("status", "shipped")).build()));
+        List<LexicalIndex.Hit> hits = index.search("A12345", 10);
+        assertEquals(List.of("a"), ids(hits));
+        assertEquals("shipped", hits.get(0).document().getMetadata().get("status"));
+
+        index.add(List.of(document("a", "invoice C13579")));
+        assertEquals(2, index.size());
+        assertEquals(List.of(), index.search("A12345", 10));
+        assertEquals(List.of("a"), ids(index.search("C13579", 10)));
+    }
+
+    @Test
+    void compactionRenumbersPostings() {
+        LexicalIndex index = new LexicalIndex(null, false);
+        index.add(IntStream.range(0, 3000).mapToObj(LexicalIndexTest::item).toList());
+        // 2000 removed entries against 1000 live ones triggers compaction
+        index.delete(IntStream.range(0, 2000).mapToObj(i -> "item-" + i).toList());
+
+        LexicalIndex expected = fresh(IntStream.range(2000, 3000).mapToObj(LexicalIndexTest::item).toArray(Document[]::new));
+        for (String query : List.of("item-2500", "group3", "common", "item-1500 item-2999")) {
+            assertScoresEqual(expected.search(query, 20), index.search(query, 20));
+        }
+
+        // ids point at the renumbered entries
+        index.delete(List.of("item-2500"));
+        index.add(List.of(item(3000)));
+        assertEquals(1000, index.size());
+        assertFalse(ids(index.search("item-2500", 1000)).contains("item-2500"));
+        assertEquals("item-3000", index.search("item-3000", 1).get(0).document().getId());
+        assertEquals("item-2999", index.search("item-2999", 1).get(0).document().getId());
+    }
+
+    @Test
+    void saveAndReloadKeepTheIndex() {
+        LexicalIndex writer = new LexicalIndex(directory, false);
+        writer.add(List.of(
+                Document.builder().id("a").text("order A12345 shipped").metadata(Map.of("region", "eu")).build(),
+                document("b", "order B67890 pending"),
+                document("c", "invoice C13579")));
+        writer.delete(List.of("c"));
+        writer.save();
+
+        LexicalIndex reader = new LexicalIndex(directory, true);
+        assertEquals(2, reader.size());
+        assertScoresEqual(writer.search("order A12345", 10), reader.search("order A12345", 10));
+        assertEquals("eu", reader.search("A12345", 1).get(0).document().getMetadata().get("region"));
+        assertThrows(UnsupportedOperationException.class, () -> reader.add(List.of(document("d", "d"))));
+
+        writer.add(List.of(document("d", "order D24680")));
+        writer.save();
+        reader.reload();
+        assertEquals(List.of("d"), ids(reader.search("D24680", 10)));
+    }
+
+    private static Document document(String id, String text) {
+        return Document.builder().id(id).text(text).build();
+    }
+
+    private static Document item(int i) {
+        return document("item-" + i, "item-" + i + " common group" + (i % 10));
+    }
+
+    private static LexicalIndex fresh(Document... documents) {
+        LexicalIndex index = new LexicalIndex(null, false);
+        index.add(List.of(documents));
+        return index;
+    }
+
+    private static List<String> ids(List<LexicalIndex.Hit> hits) {
+        List<String> ids = new ArrayList<>(hits.size());
+        hits.forEach(hit -> ids.add(hit.document().getId()));
+        return ids;
+    }
+
+    private static void assertScoresEqual(List<LexicalIndex.Hit> expected, List<LexicalIndex.Hit> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).score(), actual.get(i).score(), 1e-9);
+            assertEquals(expected.get(i).matched(), actual.get(i).matched());
+        }
+    }
+}
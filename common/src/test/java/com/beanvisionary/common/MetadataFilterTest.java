@@ -0,0 +1,130 @@
+package com.beanvisionary.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.vectorstore.filter.FilterExpressionTextParser;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Evaluates each filter operator against document metadata, with filters written in Spring AI's
+ * text syntax as callers of {@code similaritySearch} write them.
+ */
+class MetadataFilterTest {
+
+    private static final Map<String, Object> METADATA = Map.of(
+            "source", "orders.csv",
+            "year", 2021L,
+            "score", 0.75,
+            "region", "eu",
+            "draft", false);
+
+    @Test
+    void nullExpressionAcceptsEverything() {
+        assertTrue(MetadataFilter.compile(null).test(METADATA));
+        assertTrue(MetadataFilter.compile(null).test(Map.of()));
+    }
+
+    @Test
+    void eq() {
+        assertTrue(matches("source == 'orders.csv'"));
+        assertFalse(matches("source == 'users.csv'"));
+        assertTrue(matches("draft == false"));
+        assertFalse(matches("missing == 'x'"));
+    }
+
+    @Test
+    void eqComparesNumbersByValue() {
+        assertTrue(matches("year == 2021"));
+        assertTrue(matches("score == 0.75"));
+        assertFalse(matches("year == 2020"));
+    }
+
+    @Test
+    void ne() {
+        assertTrue(matches("source != 'users.csv'"));
+        assertFalse(matches("source != 'orders.csv'"));
+        assertTrue(matches("missing != 'x'"));
+    }
+
+    @Test
+    void gt() {
+        assertTrue(matches("year > 2020"));
+        assertFalse(matches("year > 2021"));
+        assertTrue(matches("score > 0.5"));
+        assertFalse(matches("missing > 1"));
+    }
+
+    @Test
+    void gte() {
+        assertTrue(matches("year >= 2021"));
+        assertFalse(matches("year >= 2022"));
+    }
+
+    @Test
+    void lt() {
+        assertTrue(matches("year < 2022"));
+        assertFalse(matches("year < 2021"));
+        assertTrue(matches("region < 'us'"));
+    }
+
+    @Test
+    void lte() {
+        assertTrue(matches("year <= 2021"));
+        assertFalse(matches("year <= 2020"));
+        assertFalse(matches("missing <= 1"));
+    }
+
+    @Test
+    void in() {
+        assertTrue(matches("region in ['eu', 'us']"));
+        assertFalse(matches("region in ['us', 'apac']"));
+        assertTrue(matches("year in [2020, 2021]"));
+        assertFalse(matches("missing in ['x']"));
+    }
+
+    @Test
+    void nin() {
+        assertTrue(matches("region nin ['us', 'apac']"));
+        assertFalse(matches("region nin ['eu', 'us']"));
+        assertTrue(matches("missing nin ['x']"));
+    }
+
+    @Test
+    void and() {
+        assertTrue(matches("region == 'eu' && year > 2020"));
+        assertFalse(matches("region == 'eu' && year > 2021"));
+    }
+
+    @Test
+    void or() {
+        assertTrue(matches("region == 'us' || year > 2020"));
+        assertFalse(matches("region == 'us' || year > 2021"));
+    }
+
+    @Test
+    void not() {
+        assertTrue(matches("not(region == 'us')"));
+        assertFalse(matches("not(region == 'eu')"));
+    }
+
+    @Test
+    void groups() {
+        assertTrue(matches("(region == 'us' || region == 'eu') && year == 2021"));
+        assertFalse(matches("region == 'us' || (region == 'eu' && year == 2020)"));
+    }
+
+    @Test
+    void quotedKeys() {
+        assertTrue(matches("'source' == 'orders.csv'"));
+        assertTrue(matches("\"region\" in ['eu']"));
+    }
+
+    private static boolean matches(String filter) {
+        Predicate<Map<String, Object>> predicate = MetadataFilter.compile(new FilterExpressionTextParser().parse(filter));
+        return predicate.test(METADATA);
+    }
+}
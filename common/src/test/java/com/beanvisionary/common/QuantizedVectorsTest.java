@@ -0,0 +1,78 @@
+package com.beanvisionary.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the int8 scan. Surefire runs this class twice, with {@code jdk.incubator.vector} added and
+ * {@code vector.api} set, and again without the module, so the scan is covered on both paths.
+ */
+class QuantizedVectorsTest {
+
+    private static final boolean VECTOR_API = Boolean.getBoolean("vector.api");
+
+    private final Random random = new Random(42);
+
+    @Test
+    void scanRunsOnTheExpectedPath() {
+        // VectorizedInt8DotProduct cannot be loaded at all without the module
+        boolean expected = VECTOR_API && VectorizedInt8DotProduct.supported();
+        assertEquals(expected, QuantizedVectors.vectorized());
+    }
+
+    @Test
+    void vectorizedDotProductMatchesScalar() {
+        assumeTrue(VECTOR_API && VectorizedInt8DotProduct.supported(), "Vector API not available");
+        Int8DotProduct vectorized = new VectorizedInt8DotProduct();
+        byte[] codes = new byte[1024];
+        random.nextBytes(codes);
+        // lengths around the lane counts exercise the unrolled loop, the single-vector loop and the scalar tail
+        for (int length = 1; length <= 100; length++) {
+            float[] query = TestVectors.gaussian(random, 1, length)[0];
+            for (int offset : new int[] {0, 1, 7, 512}) {
+                float scalar = Int8DotProduct.scalar(codes, offset, query);
+                assertEquals(scalar, vectorized.dot(codes, offset, query), 1e-3f * Math.max(1, Math.abs(scalar)),
+                        "length " + length + ", offset " + offset);
+            }
+        }
+    }
+
+    @Test
+    void scanFindsEachVectorItself() {
+        int dimensions = 67;
+        float[][] vectors = TestVectors.gaussian(random, 600, dimensions);
+        QuantizedVectors codes = new QuantizedVectors(dimensions);
+        for (int i = 0; i < vectors.length; i++) {
+            codes.set(i, VectorMath.normalize(vectors[i]));
+        }
+        for (int i = 0; i < vectors.length; i++) {
+            TopK top = new TopK(1);
+            codes.scan(0, vectors.length, VectorMath.normalize(vectors[i]), top, slot -> true);
+            assertArrayEquals(new int[] {i}, top.slots());
+        }
+    }
+
+    @Test
+    void scanStaysInRangeAndSkipsRejectedSlots() {
+        int dimensions = 16;
+        float[][] vectors = TestVectors.gaussian(random, 3000, dimensions);
+        QuantizedVectors codes = new QuantizedVectors(dimensions);
+        for (int i = 0; i < vectors.length; i++) {
+            codes.set(i, VectorMath.normalize(vectors[i]));
+        }
+        TopK top = new TopK(vectors.length);
+        codes.scan(1000, 2500, VectorMath.normalize(vectors[0]), top, slot -> slot % 3 != 0);
+
+        int[] slots = top.slots();
+        Arrays.sort(slots);
+        int[] expected = IntStream.range(1000, 2500).filter(slot -> slot % 3 != 0).toArray();
+        assertArrayEquals(expected, slots);
+    }
+}
@@ -0,0 +1,112 @@
+package com.beanvisionary.common;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Seeded random vectors and the exact top-k over them, for checking the in-process vector stores.
+ */
+final class TestVectors {
+
+    private TestVectors() {}
+
+    static float[][] gaussian(Random random, int count, int dimensions) {
+        float[][] vectors = new float[count][dimensions];
+        for (float[] v : vectors) {
+            for (int d = 0; d < dimensions; d++) {
+                v[d] = (float) random.nextGaussian();
+            }
+        }
+        return vectors;
+    }
+
+    static List<Document> documents(int from, int to) {
+        List<Document> documents = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            documents.add(Document.builder().id(id(i)).text("document " + i).build());
+        }
+        return documents;
+    }
+
+    static String id(int i) {
+        return "doc-" + i;
+    }
+
+    /**
+     * @return the ids of the {@code k} vectors accepted by {@code live} most similar to {@code query}
+     */
+    static List<String> exactTopK(float[][] vectors, float[] query, int k, IntPredicate live) {
+        float[] q = VectorMath.normalize(query);
+        float[] scores = new float[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            float[] v = VectorMath.normalize(vectors[i]);
+            for (int d = 0; d < v.length; d++) {
+                scores[i] += v[d] * q[d];
+            }
+        }
+        return IntStream.range(0, vectors.length)
+                .filter(live)
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> -scores[i]))
+                .limit(k)
+                .map(TestVectors::id)
+                .toList();
+    }
+
+    /**
+     * Average share of the exact top-k that {@code store} returns for each query.
+     */
+    static double recall(LocalVectorStore store, float[][] vectors, float[][] queries, int k, IntPredicate live) {
+        int hits = 0;
+        for (int q = 0; q < queries.length; q++) {
+            Set<String> expected = new HashSet<>(exactTopK(vectors, queries[q], k, live));
+            for (Document document : store.similaritySearch(query(q, k))) {
+                if (expected.contains(document.getId())) {
+                    hits++;
+                }
+            }
+        }
+        return (double) hits / (queries.length * k);
+    }
+
+    static SearchRequest query(int q, int k) {
+        return SearchRequest.builder().query(Integer.toString(q)).topK(k).build();
+    }
+
+    static List<String> ids(List<Document> documents) {
+        return documents.stream().map(Document::getId).toList();
+    }
+
+    /**
+     * Resolves a query text, the index of a precomputed query vector, without an embedding call.
+     */
+    record QueryEmbeddings(float[][] queries) implements EmbeddingModel {
+
+        @Override
+        public float[] embed(String text) {
+            return queries[Integer.parseInt(text)].clone();
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            throw new UnsupportedOperationException("test queries are precomputed");
+        }
+    }
+}
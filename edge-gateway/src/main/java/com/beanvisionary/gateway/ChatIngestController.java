@@ -1,6 +1,7 @@
 package com.beanvisionary.gateway;
 
 import com.beanvisionary.common.ChatRequest;
+import com.beanvisionary.common.SessionKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -66,7 +67,7 @@ public class ChatIngestController {
         logger.debug("Message content: {}", event);
 
         try {
-            kafkaTemplate.send(AI_REQUESTS, requestId, event);
+            kafkaTemplate.send(AI_REQUESTS, SessionKeys.of(sessionId), event);
             logger.debug("Message sent successfully");
         } catch (Exception e) {
             logger.error("Error sending message: {}", e.getMessage(), e);
@@ -0,0 +1,16 @@
+package com.beanvisionary.gateway;
+
+import com.beanvisionary.common.EventMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.support.converter.RecordMessageConverter;
+
+@Configuration
+public class GatewayKafkaConfig {
+
+    @Bean
+    RecordMessageConverter recordMessageConverter(ObjectMapper mapper) {
+        return new EventMessageConverter(mapper);
+    }
+}
@@ -1,23 +1,71 @@
 package com.beanvisionary.gateway;
 
 import com.beanvisionary.common.ChatResponse;
+import com.beanvisionary.common.StreamFrame;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import static com.beanvisionary.common.KafkaTopics.AI_RESPONSES;
+import static com.beanvisionary.common.KafkaTopics.AI_STREAM;
 
 @Service
 public class ResponseConsumer {
+    private static final String PARTIAL_PREFIX = "[partial]";
+    private static final int COMPLETED_CAPACITY = 10_000;
+
     private final SimpMessagingTemplate ws;
+    /**
+     * Requests whose final answer has been forwarded. The stream and response topics are not
+     * ordered relative to each other, so a late frame must not be shown after the answer.
+     */
+    private final Set<String> completed = Collections.newSetFromMap(Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > COMPLETED_CAPACITY;
+                }
+            }));
 
     public ResponseConsumer(SimpMessagingTemplate ws) {
         this.ws = ws;
     }
 
-    @KafkaListener(topics = AI_RESPONSES, groupId = "edge-gateway")
+    @KafkaListener(topics = AI_RESPONSES, groupId = "edge-gateway",
+            concurrency = "${app.kafka.concurrency:${app.kafka.partitions:6}}")
     public void forward(ChatResponse resp) {
-        String dest = "/topic/replies." + (resp.sessionId() != null ? resp.sessionId() : "default");
-        ws.convertAndSend(dest, resp);
+        if (resp.requestId() != null && (resp.answer() == null || !resp.answer().startsWith(PARTIAL_PREFIX))) {
+            completed.add(resp.requestId());
+        }
+        ws.convertAndSend(destination(resp.sessionId()), resp);
+    }
+
+    /**
+     * Forwards a stream frame as the partial response clients already understand.
+     */
+    @KafkaListener(topics = AI_STREAM, groupId = "edge-gateway",
+            concurrency = "${app.kafka.concurrency:${app.kafka.partitions:6}}")
+    public void forwardFrame(StreamFrame frame) {
+        if (frame.requestId() != null && completed.contains(frame.requestId())) {
+            return;
+        }
+        String answer = switch (frame.kind()) {
+            case DELTA -> "[partial][delta:" + frame.seq() + "] " + frame.text();
+            case THINKING -> "[partial][thinking] " + frame.text();
+            case CUMULATIVE -> "[partial] " + frame.text();
+        };
+        ws.convertAndSend(destination(frame.sessionId()), new ChatResponse(frame.requestId(), null, frame.sessionId(),
+                answer, List.of(), List.of(), Instant.now()));
+    }
+
+    private static String destination(String sessionId) {
+        return "/topic/replies." + (sessionId != null ? sessionId : "default");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package com.beanvisionary.tool;
+
+import com.beanvisionary.common.SessionKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.beanvisionary.common.KafkaTopics.AI_TOOL_CALLS;
+
+/**
+ * Executes the tool calls of each poll concurrently ({@code app.tools.consumer.mode: batch}, the
+ * default), so one slow MCP response no longer holds up every call behind it.
+ *
+ * Calls are grouped by session: calls of the same session run one after another in record order,
+ * different sessions run in parallel, at most {@code app.tools.concurrency} at a time. Each result
+ * is published as soon as its call completes. The listener returns, and the container commits the
+ * batch's offsets, only once every call has finished and its result has been acknowledged by
+ * Kafka. A failed call publishes an error result and does not fail the rest of the batch.
+ *
+ * The batch gets {@code app.tools.consumer.batch-timeout-ms}, which must stay below the
+ * consumer's {@code max.poll.interval.ms}: calls are cut short when it runs out, and calls not yet
+ * started by then publish an error result without contacting the MCP server.
+ */
+@Service
+@ConditionalOnProperty(name = "app.tools.consumer.mode", havingValue = "batch", matchIfMissing = true)
+public class ToolCallBatchConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolCallBatchConsumer.class);
+
+    private final ToolInvoker invoker;
+    private final int concurrency;
+    private final long batchTimeoutNanos;
+
+    public ToolCallBatchConsumer(
+            ToolInvoker invoker,
+            @Value("${app.tools.concurrency:16}") int concurrency,
+            @Value("${app.tools.consumer.batch-timeout-ms:240000}") long batchTimeoutMs) {
+        this.invoker = invoker;
+        this.concurrency = concurrency;
+        this.batchTimeoutNanos = Duration.ofMillis(batchTimeoutMs).toNanos();
+    }
+
+    @KafkaListener(topics = AI_TOOL_CALLS, groupId = "tool-service", containerFactory = "toolCallsBatchFactory",
+            concurrency = "${app.kafka.concurrency:${app.kafka.partitions:6}}")
+    public void handle(List<Map<String, Object>> batch) {
+        Map<String, List<Map<String, Object>>> bySession = new LinkedHashMap<>();
+        for (Map<String, Object> msg : batch) {
+            if (msg != null) {
+                bySession.computeIfAbsent(SessionKeys.of((String) msg.get("sessionId")), s -> new ArrayList<>()).add(msg);
+            }
+        }
+        long started = System.nanoTime();
+        long deadline = started + batchTimeoutNanos;
+        Flux.fromIterable(bySession.values())
+                .flatMap(calls -> Flux.fromIterable(calls).concatMap(msg -> invoke(msg, deadline)), concurrency)
+                .then()
+                .block();
+        logger.debug("Executed {} tool calls from {} sessions in {} ms",
+                batch.size(), bySession.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private Mono<Void> invoke(Map<String, Object> msg, long deadline) {
+        return Mono.defer(() -> {
+            long remaining = deadline - System.nanoTime();
+            return remaining > 0
+                    ? invoker.invoke(msg, Duration.ofNanos(remaining))
+                    : invoker.fail(msg, "not started within the batch time budget");
+        }).onErrorResume(e -> {
+            logger.error("Failed to publish result of tool call {} for request {}: {}", msg.get("tool"), msg.get("requestId"), e.getMessage());
+            return Mono.empty();
+        });
+    }
+}
@@ -1,46 +1,29 @@
 package com.beanvisionary.tool;
 
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import java.util.Map;
-import java.util.Optional;
 
 import static com.beanvisionary.common.KafkaTopics.AI_TOOL_CALLS;
-import static com.beanvisionary.common.KafkaTopics.AI_TOOL_RESULTS;
 
+/**
+ * Executes tool calls one record at a time ({@code app.tools.consumer.mode: record}): each call
+ * blocks the listener thread until its result is published.
+ */
 @Service
+@ConditionalOnProperty(name = "app.tools.consumer.mode", havingValue = "record")
 public class ToolCallConsumer {
-    private final KafkaTemplate<String, Map<String, Object>> producer;
-    private final WebClient mcp = WebClient.builder().baseUrl("http://localhost:8091").build();
+    private final ToolInvoker invoker;
 
-    public ToolCallConsumer(KafkaTemplate<String, Map<String, Object>> producer) {
-        this.producer = producer;
+    public ToolCallConsumer(ToolInvoker invoker) {
+        this.invoker = invoker;
     }
 
-    @KafkaListener(topics = AI_TOOL_CALLS, groupId = "tool-service")
+    @KafkaListener(topics = AI_TOOL_CALLS, groupId = "tool-service",
+            concurrency = "${app.kafka.concurrency:${app.kafka.partitions:6}}")
     public void handle(Map<String, Object> msg) {
-        String requestId = (String) msg.get("requestId");
-        String tool = (String) msg.get("tool");
-        Map<String, Object> args = (Map<String, Object>) msg.get("args");
-
-        Map<String, Object> safeArgs = Optional.ofNullable(args).orElse(Map.of());
-
-        Map<String, Object> result = mcp.post()
-                .uri("/mcp/tools/{tool}", tool)
-                .bodyValue(safeArgs)
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .block();
-
-        producer.send(AI_TOOL_RESULTS, Map.of(
-            "requestId", requestId, 
-            "tool", tool, 
-            "args", safeArgs,
-            "result", result
-        ));
+        invoker.invoke(msg).block();
     }
 }
\ No newline at end of file
@@ -0,0 +1,174 @@
+package com.beanvisionary.tool;
+
+import com.beanvisionary.common.SessionKeys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static com.beanvisionary.common.KafkaTopics.AI_TOOL_RESULTS;
+
+/**
+ * Executes a tool call message against the MCP server and publishes its result to
+ * {@code ai.tool.results.v1}, keyed by session. Calls go through the configured {@code mcp}
+ * {@link WebClient} without blocking and time out after {@code app.tools.mcp.timeout-ms}.
+ * A call that fails, times out or gets an empty body publishes a result with an {@code error}
+ * message and no {@code result}, so ai-service can still answer the request. A message without a
+ * {@code requestId} or {@code tool}, or whose {@code args} is not an object, is not sent to the MCP
+ * server; its error result carries whichever fields it has. Durations are recorded as
+ * {@code tool.mcp.calls{tool,outcome}}.
+ */
+@Component
+public class ToolInvoker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolInvoker.class);
+
+    private final WebClient mcp;
+    private final KafkaTemplate<String, Map<String, Object>> producer;
+    private final MeterRegistry meterRegistry;
+    private final Duration timeout;
+
+    public ToolInvoker(
+            WebClient mcp,
+            KafkaTemplate<String, Map<String, Object>> producer,
+            MeterRegistry meterRegistry,
+            @Value("${app.tools.mcp.timeout-ms:30000}") long timeoutMs) {
+        this.mcp = mcp;
+        this.producer = producer;
+        this.meterRegistry = meterRegistry;
+        this.timeout = Duration.ofMillis(timeoutMs);
+    }
+
+    /**
+     * Calls the tool named in {@code msg} and publishes the result once it arrives.
+     *
+     * @return completes when the result has been acknowledged by Kafka
+     */
+    public Mono<Void> invoke(Map<String, Object> msg) {
+        return invoke(msg, timeout);
+    }
+
+    /**
+     * Like {@link #invoke(Map)}, giving up after {@code maxTimeout} when that is shorter than
+     * {@code app.tools.mcp.timeout-ms}.
+     */
+    public Mono<Void> invoke(Map<String, Object> msg, Duration maxTimeout) {
+        String invalid = validate(msg);
+        if (invalid != null) {
+            logger.warn("Rejecting tool call message {}: {}", msg, invalid);
+            return fail(msg, invalid);
+        }
+        String requestId = text(msg, "requestId");
+        String sessionId = SessionKeys.of(text(msg, "sessionId"));
+        String tool = text(msg, "tool");
+        Map<String, Object> safeArgs = args(msg);
+
+        Duration callTimeout = maxTimeout.compareTo(timeout) < 0 ? maxTimeout : timeout;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return mcp.post()
+                .uri("/mcp/tools/{tool}", tool)
+                .bodyValue(safeArgs)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("empty response from the MCP server")))
+                .timeout(callTimeout)
+                .doOnSuccess(result -> sample.stop(timer(tool, "success")))
+                .doOnError(e -> sample.stop(timer(tool, "error")))
+                .map(result -> message(requestId, sessionId, tool, safeArgs, "result", result))
+                .onErrorResume(e -> {
+                    String error = e instanceof TimeoutException
+                            ? "no response within " + callTimeout.toMillis() + " ms"
+                            : String.valueOf(e.getMessage());
+                    logger.warn("Tool call {} for request {} failed: {}", tool, requestId, error);
+                    return Mono.just(message(requestId, sessionId, tool, safeArgs, "error", error));
+                })
+                .flatMap(message -> Mono.fromFuture(publish(sessionId, message)))
+                .then();
+    }
+
+    /**
+     * Publishes an error result for {@code msg} without calling the tool.
+     *
+     * @return completes when the result has been acknowledged by Kafka
+     */
+    public Mono<Void> fail(Map<String, Object> msg, String error) {
+        String sessionId = SessionKeys.of(text(msg, "sessionId"));
+        return Mono.fromFuture(publish(sessionId, message(text(msg, "requestId"), sessionId, text(msg, "tool"), args(msg), "error", error)))
+                .then();
+    }
+
+    /**
+     * @return why {@code msg} cannot be sent to the MCP server, or null when it can
+     */
+    private static String validate(Map<String, Object> msg) {
+        if (text(msg, "requestId") == null) {
+            return "missing requestId";
+        }
+        if (text(msg, "tool") == null) {
+            return "missing tool";
+        }
+        Object args = msg.get("args");
+        if (args != null && !(args instanceof Map)) {
+            return "args is not an object";
+        }
+        return null;
+    }
+
+    private static String text(Map<String, Object> msg, String field) {
+        Object value = msg.get(field);
+        return value instanceof String && !((String) value).isBlank() ? (String) value : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> args(Map<String, Object> msg) {
+        Object args = msg.get("args");
+        return args instanceof Map ? (Map<String, Object>) args : Map.of();
+    }
+
+    /**
+     * Fields that are null, which only an invalid message has, are left out.
+     *
+     * @param field {@code result} with the tool's response, or {@code error} with why there is none
+     */
+    private static Map<String, Object> message(String requestId, String sessionId, String tool,
+                                               Map<String, Object> args, String field, Object value) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        putIfPresent(message, "requestId", requestId);
+        putIfPresent(message, "sessionId", sessionId);
+        putIfPresent(message, "tool", tool);
+        putIfPresent(message, "args", args);
+        putIfPresent(message, field, value);
+        return message;
+    }
+
+    private static void putIfPresent(Map<String, Object> message, String field, Object value) {
+        if (value != null) {
+            message.put(field, value);
+        }
+    }
+
+    private CompletableFuture<?> publish(String sessionId, Map<String, Object> message) {
+        logger.debug("Publishing result of {} for request {}", message.get("tool"), message.get("requestId"));
+        return producer.send(AI_TOOL_RESULTS, sessionId, message);
+    }
+
+    private Timer timer(String tool, String outcome) {
+        return Timer.builder("tool.mcp.calls")
+                .description("MCP tool call latency")
+                .tag("tool", String.valueOf(tool))
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
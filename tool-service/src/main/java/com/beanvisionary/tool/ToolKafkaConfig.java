@@ -1,16 +1,45 @@
 package com.beanvisionary.tool;
 
+import com.beanvisionary.common.EventMessageConverter;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.converter.BatchMessagingMessageConverter;
 import org.springframework.kafka.support.converter.RecordMessageConverter;
-import org.springframework.kafka.support.converter.StringJsonMessageConverter;
 
 @Configuration
 public class ToolKafkaConfig {
 
     @Bean
     RecordMessageConverter recordMessageConverter(ObjectMapper mapper) {
-        return new StringJsonMessageConverter(mapper);
+        return new EventMessageConverter(mapper);
+    }
+
+    /**
+     * Batch container factory for {@code ai.tool.calls.v1}: a poll is delivered as one list and its
+     * offsets are committed after the listener returns. Polls are capped at
+     * {@code app.tools.consumer.max-poll-records} so a batch of slow calls stays well inside
+     * {@code max.poll.interval.ms}.
+     */
+    @Bean
+    ConcurrentKafkaListenerContainerFactory<Object, Object> toolCallsBatchFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            RecordMessageConverter recordMessageConverter,
+            @Value("${app.tools.consumer.max-poll-records:100}") int maxPollRecords) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setBatchMessageConverter(new BatchMessagingMessageConverter(recordMessageConverter));
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.getContainerProperties().getKafkaConsumerProperties()
+                .setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        return factory;
     }
 }
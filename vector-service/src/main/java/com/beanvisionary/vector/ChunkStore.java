@@ -0,0 +1,39 @@
+package com.beanvisionary.vector;
+
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Where {@link IngestionPipeline} writes chunks with their precomputed embeddings.
+ */
+public interface ChunkStore {
+
+    /**
+     * Content hash and chunk count of a stored chunk, as written by {@link DocumentChunker}.
+     */
+    record StoredChunk(String contentHash, long chunkCount) {}
+
+    /**
+     * @return the stored chunks among the given ids, keyed by id
+     */
+    Map<String, StoredChunk> lookup(List<String> ids);
+
+    void upsert(List<Document> chunks, List<float[]> embeddings);
+
+    void delete(List<String> ids);
+
+    /**
+     * @return the ids of stored chunks whose {@code source_id} is not among {@code sourceIds};
+     *         chunks without a source id are never returned
+     */
+    List<String> chunksOfOtherSources(Set<String> sourceIds);
+
+    /**
+     * Makes everything written so far durable and visible; called at the end of each ingestion run.
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,143 @@
+package com.beanvisionary.vector;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Splits source documents into token-bounded chunks with stable ids and content hashes.
+ *
+ * A source with an {@code id} field produces chunks whose point ids are derived from that id and
+ * the chunk index, so reloading the same source addresses the same points. Chunks hold at most
+ * {@code app.ingest.chunk.max-tokens} tokens (cl100k), break at whitespace, and repeat the last
+ * {@code app.ingest.chunk.overlap-tokens} tokens of the previous chunk. Each chunk carries the
+ * source metadata plus {@code source_id}, {@code chunk_index}, {@code chunk_count} and a
+ * {@code content_hash} over its text and metadata. {@code chunk_count} is left out of the hash, so a
+ * source gaining or losing chunks does not invalidate the chunks that did not change.
+ */
+@Component
+public class DocumentChunker {
+
+    public static final String SOURCE_ID = "source_id";
+    public static final String CHUNK_INDEX = "chunk_index";
+    public static final String CHUNK_COUNT = "chunk_count";
+    public static final String CONTENT_HASH = "content_hash";
+
+    private final Encoding encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+    private final int maxTokens;
+    private final int overlapTokens;
+
+    public DocumentChunker(
+            @Value("${app.ingest.chunk.max-tokens:512}") int maxTokens,
+            @Value("${app.ingest.chunk.overlap-tokens:64}") int overlapTokens) {
+        this.maxTokens = maxTokens;
+        this.overlapTokens = Math.min(overlapTokens, maxTokens / 2);
+    }
+
+    public List<Document> chunk(Document source) {
+        Object sourceId = source.getMetadata().get("id");
+        List<String> texts = split(source.getText());
+        List<Document> chunks = new ArrayList<>(texts.size());
+
+        for (int i = 0; i < texts.size(); i++) {
+            Map<String, Object> metadata = new HashMap<>(source.getMetadata());
+            metadata.remove("text");
+            metadata.put(CHUNK_INDEX, i);
+            metadata.put(CHUNK_COUNT, texts.size());
+            String id;
+            if (sourceId != null) {
+                metadata.put(SOURCE_ID, sourceId.toString());
+                id = chunkId(sourceId.toString(), i);
+            } else {
+                id = UUID.randomUUID().toString();
+            }
+            metadata.put(CONTENT_HASH, hash(texts.get(i), metadata));
+            chunks.add(Document.builder().id(id).text(texts.get(i)).metadata(metadata).build());
+        }
+        return chunks;
+    }
+
+    /**
+     * Point ids of chunks {@code from} (inclusive) to {@code to} (exclusive) of a source.
+     */
+    public static List<String> chunkIds(String sourceId, int from, int to) {
+        List<String> ids = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            ids.add(chunkId(sourceId, i));
+        }
+        return ids;
+    }
+
+    private static String chunkId(String sourceId, int index) {
+        return UUID.nameUUIDFromBytes((sourceId + "#" + index).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    List<String> split(String text) {
+        if (text == null || text.isEmpty() || encoding.countTokens(text) <= maxTokens) {
+            return List.of(text == null ? "" : text);
+        }
+
+        // words keep their trailing whitespace, so concatenating a range reproduces the original text
+        String[] words = text.split("(?<=\\s)(?=\\S)");
+        int[] tokens = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            tokens[i] = encoding.countTokens(words[i]);
+        }
+
+        List<String> wordList = Arrays.asList(words);
+        List<String> chunks = new ArrayList<>();
+        int start = 0;
+        while (start < words.length) {
+            int end = start;
+            int count = 0;
+            while (end < words.length && (end == start || count + tokens[end] <= maxTokens)) {
+                count += tokens[end++];
+            }
+            chunks.add(String.join("", wordList.subList(start, end)).strip());
+            if (end >= words.length) {
+                break;
+            }
+            int next = end;
+            int overlap = 0;
+            while (next - 1 > start && overlap + tokens[next - 1] <= overlapTokens) {
+                overlap += tokens[--next];
+            }
+            start = next;
+        }
+        return chunks;
+    }
+
+    private static String hash(String text, Map<String, Object> metadata) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            new TreeMap<>(metadata).forEach((key, value) -> {
+                if (CHUNK_COUNT.equals(key)) {
+                    return;
+                }
+                digest.update((byte) 0);
+                digest.update(key.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '=');
+                digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            });
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
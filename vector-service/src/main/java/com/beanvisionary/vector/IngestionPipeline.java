@@ -0,0 +1,340 @@
+package com.beanvisionary.vector;
+
+import com.beanvisionary.common.LexicalIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Bulk ingestion into the vector store.
+ *
+ * Source documents are split into chunks by {@link DocumentChunker} and the chunks are grouped
+ * into batches of {@code app.ingest.batch-size}. For each batch the stored content hashes are
+ * fetched in one call; chunks whose hash is unchanged are skipped, the rest are embedded with one
+ * call to the embedding model and written to the {@link ChunkStore} in one call, and chunks beyond
+ * a source's new chunk count are deleted. Chunk 0 carries the source's chunk count, so it is also
+ * rewritten when only the count changed. When a {@link LexicalIndex} is configured, every chunk of
+ * the batch, unchanged ones included, is indexed there too. At most {@code app.ingest.concurrency}
+ * batches are in flight; adding a document blocks while that limit is reached, so memory stays
+ * bounded however large the input is.
+ *
+ * By default a run only touches the sources it contains, so partial upserts are safe. A run opened
+ * with {@code prune} is a full sync: once every batch is written, the chunks of stored sources that
+ * were not in the run are deleted as well. Documents without an {@code id} have no source id and
+ * are never pruned.
+ */
+@Component
+public class IngestionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionPipeline.class);
+
+    /**
+     * Outcome of an ingestion run. Stage times are summed over all batches, so with several
+     * batches in flight they can exceed the elapsed time.
+     */
+    public record Report(long documents, long chunks, long written, long unchanged, long deleted,
+                         int batches, long embedMs, long writeMs, long elapsedMs) {
+        public double documentsPerSecond() {
+            return elapsedMs == 0 ? documents : documents * 1000.0 / elapsedMs;
+        }
+    }
+
+    private final EmbeddingModel embeddingModel;
+    private final ChunkStore chunkStore;
+    private final DocumentChunker chunker;
+    private final LexicalIndex lexicalIndex;
+    private final int batchSize;
+    private final int concurrency;
+    private final int progressEvery;
+    private final boolean skipUnchanged;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Timer embedTimer;
+    private final Timer writeTimer;
+    private final Counter documentCounter;
+    private final Counter unchangedCounter;
+    private final Counter deletedCounter;
+
+    public IngestionPipeline(
+            EmbeddingModel embeddingModel,
+            ChunkStore chunkStore,
+            DocumentChunker chunker,
+            ObjectProvider<LexicalIndex> lexicalIndex,
+            MeterRegistry meterRegistry,
+            @Value("${app.ingest.batch-size:64}") int batchSize,
+            @Value("${app.ingest.concurrency:4}") int concurrency,
+            @Value("${app.ingest.progress-every:10000}") int progressEvery,
+            @Value("${app.ingest.skip-unchanged:true}") boolean skipUnchanged) {
+        this.embeddingModel = embeddingModel;
+        this.chunkStore = chunkStore;
+        this.chunker = chunker;
+        this.lexicalIndex = lexicalIndex.getIfAvailable();
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.progressEvery = progressEvery;
+        this.skipUnchanged = skipUnchanged;
+        this.embedTimer = Timer.builder("vector.ingest.stage").tag("stage", "embed").register(meterRegistry);
+        this.writeTimer = Timer.builder("vector.ingest.stage").tag("stage", "write").register(meterRegistry);
+        this.documentCounter = Counter.builder("vector.ingest.chunks").tag("result", "written").register(meterRegistry);
+        this.unchangedCounter = Counter.builder("vector.ingest.chunks").tag("result", "unchanged").register(meterRegistry);
+        this.deletedCounter = Counter.builder("vector.ingest.chunks").tag("result", "deleted").register(meterRegistry);
+    }
+
+    public Report ingest(List<Document> documents) {
+        try (Ingestion ingestion = open(false)) {
+            documents.forEach(ingestion::add);
+            return ingestion.finish();
+        }
+    }
+
+    /**
+     * @param prune whether to delete the chunks of stored sources that the run does not contain
+     */
+    public Ingestion open(boolean prune) {
+        return new Ingestion(prune);
+    }
+
+    /**
+     * A single ingestion run. Not thread-safe: documents are added from one thread, while their
+     * batches are embedded and written in the background.
+     */
+    public class Ingestion implements AutoCloseable {
+
+        private final Semaphore slots = new Semaphore(concurrency);
+        private final List<CompletableFuture<Void>> pending = new ArrayList<>();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong written = new AtomicLong();
+        private final AtomicLong unchanged = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+        private final AtomicLong embedNanos = new AtomicLong();
+        private final AtomicLong writeNanos = new AtomicLong();
+        private final long startedAtMs = System.currentTimeMillis();
+        private final boolean prune;
+        private final Set<String> sourceIds = new HashSet<>();
+        private List<Document> batch = new ArrayList<>(batchSize);
+        private long sources;
+        private long chunks;
+        private int batches;
+        private volatile Throwable failure;
+
+        private Ingestion(boolean prune) {
+            this.prune = prune;
+        }
+
+        /**
+         * Chunks and queues a source document. Blocks while {@code app.ingest.concurrency} batches
+         * are in flight.
+         */
+        public void add(Document document) {
+            sources++;
+            Object sourceId = document.getMetadata().get("id");
+            if (prune && sourceId != null) {
+                sourceIds.add(sourceId.toString());
+            }
+            for (Document chunk : chunker.chunk(document)) {
+                chunks++;
+                batch.add(chunk);
+                if (batch.size() >= batchSize) {
+                    submit();
+                }
+            }
+        }
+
+        /**
+         * Writes the last partial batch and waits for every batch to complete.
+         *
+         * @throws IllegalStateException if any batch failed to embed or write
+         */
+        public Report finish() {
+            if (!batch.isEmpty()) {
+                submit();
+            }
+            try {
+                CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).get();
+                if (prune) {
+                    deleteOtherSources();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for ingestion to finish", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Ingestion failed after " + written.get() + " chunks were written", e.getCause());
+            } finally {
+                chunkStore.flush();
+                if (lexicalIndex != null) {
+                    lexicalIndex.save();
+                }
+            }
+            Report report = new Report(sources, chunks, written.get(), unchanged.get(), deleted.get(), batches,
+                    TimeUnit.NANOSECONDS.toMillis(embedNanos.get()),
+                    TimeUnit.NANOSECONDS.toMillis(writeNanos.get()),
+                    System.currentTimeMillis() - startedAtMs);
+            logger.info("Ingested {} documents ({} chunks: {} written, {} unchanged, {} deleted) in {} batches in {} ms "
+                            + "({} docs/s; embed {} ms, write {} ms)",
+                    report.documents(), report.chunks(), report.written(), report.unchanged(), report.deleted(),
+                    report.batches(), report.elapsedMs(),
+                    String.format("%.1f", report.documentsPerSecond()), report.embedMs(), report.writeMs());
+            return report;
+        }
+
+        /**
+         * Chunks written or deleted so far, i.e. whether this run has changed the collection.
+         */
+        public long changed() {
+            return written.get() + deleted.get();
+        }
+
+        @Override
+        public void close() {
+            pending.forEach(f -> f.cancel(false));
+        }
+
+        private void submit() {
+            if (failure != null) {
+                throw new IllegalStateException("Ingestion failed after " + written.get() + " chunks were written", failure);
+            }
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for an ingestion slot", e);
+            }
+            List<Document> current = batch;
+            batch = new ArrayList<>(batchSize);
+            batches++;
+            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> process(current), executor)
+                    .whenComplete((ignored, error) -> {
+                        slots.release();
+                        if (error != null && failure == null) {
+                            failure = error;
+                        }
+                    });
+            pending.add(future);
+        }
+
+        private void process(List<Document> batch) {
+            List<Document> documents = batch;
+            if (skipUnchanged) {
+                Map<String, ChunkStore.StoredChunk> stored = chunkStore.lookup(batch.stream().map(Document::getId).toList());
+                deleteStaleChunks(batch, stored);
+                documents = batch.stream().filter(d -> !isUnchanged(d, stored.get(d.getId()))).toList();
+                unchanged.addAndGet(batch.size() - documents.size());
+                unchangedCounter.increment(batch.size() - documents.size());
+            }
+            if (!documents.isEmpty()) {
+                embedAndWrite(documents);
+            }
+            if (lexicalIndex != null) {
+                lexicalIndex.add(batch);
+            }
+
+            long total = processed.addAndGet(batch.size());
+            if (progressEvery > 0 && total / progressEvery != (total - batch.size()) / progressEvery) {
+                long elapsed = Math.max(1, System.currentTimeMillis() - startedAtMs);
+                logger.info("Ingestion progress: {} chunks processed, {} written ({} chunks/s)",
+                        total, written.get(), total * 1000 / elapsed);
+            }
+        }
+
+        private void embedAndWrite(List<Document> documents) {
+            long start = System.nanoTime();
+            List<float[]> embeddings = embeddingModel.embed(documents.stream().map(Document::getText).toList());
+            long embedded = System.nanoTime();
+            embedNanos.addAndGet(embedded - start);
+            embedTimer.record(embedded - start, TimeUnit.NANOSECONDS);
+
+            chunkStore.upsert(documents, embeddings);
+            long done = System.nanoTime();
+            writeNanos.addAndGet(done - embedded);
+            writeTimer.record(done - embedded, TimeUnit.NANOSECONDS);
+            documentCounter.increment(documents.size());
+            written.addAndGet(documents.size());
+        }
+
+        /**
+         * Deletes the trailing chunks of sources that now have fewer chunks than were stored. The
+         * stored count is read from chunk 0, which every source has.
+         */
+        private void deleteStaleChunks(List<Document> batch, Map<String, ChunkStore.StoredChunk> stored) {
+            List<String> stale = new ArrayList<>();
+            for (Document document : batch) {
+                Map<String, Object> metadata = document.getMetadata();
+                Object sourceId = metadata.get(DocumentChunker.SOURCE_ID);
+                ChunkStore.StoredChunk previous = stored.get(document.getId());
+                if (sourceId == null || previous == null || !Integer.valueOf(0).equals(metadata.get(DocumentChunker.CHUNK_INDEX))) {
+                    continue;
+                }
+                int count = (Integer) metadata.get(DocumentChunker.CHUNK_COUNT);
+                stale.addAll(DocumentChunker.chunkIds(sourceId.toString(), count, (int) previous.chunkCount()));
+            }
+            if (stale.isEmpty()) {
+                return;
+            }
+            chunkStore.delete(stale);
+            if (lexicalIndex != null) {
+                lexicalIndex.delete(stale);
+            }
+            deleted.addAndGet(stale.size());
+            deletedCounter.increment(stale.size());
+        }
+
+        /**
+         * Deletes the chunks of stored sources that this run did not contain.
+         */
+        private void deleteOtherSources() {
+            List<String> stale = chunkStore.chunksOfOtherSources(sourceIds);
+            for (int from = 0; from < stale.size(); from += batchSize) {
+                List<String> ids = stale.subList(from, Math.min(stale.size(), from + batchSize));
+                chunkStore.delete(ids);
+                if (lexicalIndex != null) {
+                    lexicalIndex.delete(ids);
+                }
+            }
+            deleted.addAndGet(stale.size());
+            deletedCounter.increment(stale.size());
+            if (!stale.isEmpty()) {
+                logger.info("Pruned {} chunks of sources missing from this run", stale.size());
+            }
+        }
+
+        /**
+         * Whether a chunk can be skipped: its hash is unchanged and, for chunk 0, the stored chunk
+         * count is still right, since stale chunks are found from it on the next run.
+         */
+        private static boolean isUnchanged(Document document, ChunkStore.StoredChunk stored) {
+            Map<String, Object> metadata = document.getMetadata();
+            if (stored == null || stored.contentHash() == null
+                    || !stored.contentHash().equals(metadata.get(DocumentChunker.CONTENT_HASH))) {
+                return false;
+            }
+            return !Integer.valueOf(0).equals(metadata.get(DocumentChunker.CHUNK_INDEX))
+                    || metadata.get(DocumentChunker.CHUNK_COUNT) instanceof Integer count && count == stored.chunkCount();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
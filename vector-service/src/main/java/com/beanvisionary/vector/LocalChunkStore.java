@@ -0,0 +1,56 @@
+package com.beanvisionary.vector;
+
+import com.beanvisionary.common.LocalVectorStore;
+import org.springframework.ai.document.Document;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link ChunkStore} over an in-process {@link LocalVectorStore}; flushing saves its snapshot.
+ */
+class LocalChunkStore implements ChunkStore {
+
+    private final LocalVectorStore store;
+
+    LocalChunkStore(LocalVectorStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Map<String, StoredChunk> lookup(List<String> ids) {
+        Map<String, StoredChunk> stored = new HashMap<>();
+        for (Document document : store.findById(ids)) {
+            Object hash = document.getMetadata().get(DocumentChunker.CONTENT_HASH);
+            Object count = document.getMetadata().get(DocumentChunker.CHUNK_COUNT);
+            stored.put(document.getId(), new StoredChunk(hash != null ? hash.toString() : null,
+                    count instanceof Number n ? n.longValue() : 0));
+        }
+        return stored;
+    }
+
+    @Override
+    public void upsert(List<Document> chunks, List<float[]> embeddings) {
+        store.add(chunks, embeddings);
+    }
+
+    @Override
+    public void delete(List<String> ids) {
+        store.delete(ids);
+    }
+
+    @Override
+    public List<String> chunksOfOtherSources(Set<String> sourceIds) {
+        return store.findIds(metadata -> {
+            Object sourceId = metadata.get(DocumentChunker.SOURCE_ID);
+            return sourceId != null && !sourceIds.contains(sourceId.toString());
+        });
+    }
+
+    @Override
+    public void flush() {
+        store.save();
+    }
+}
@@ -0,0 +1,57 @@
+package com.beanvisionary.vector;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Reads newline-delimited JSON documents one at a time.
+ *
+ * Each line is an object with a {@code text} field; the whole object, minus null values,
+ * becomes the document metadata, as with {@code /vectors/upsert}. Only the current line is
+ * held in memory, and blank lines are skipped.
+ */
+final class NdjsonDocumentReader implements Iterator<Document>, Closeable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final MappingIterator<Map<String, Object>> lines;
+
+    NdjsonDocumentReader(InputStream in) throws IOException {
+        this.lines = MAPPER.readerFor(new TypeReference<Map<String, Object>>() {}).readValues(in);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return lines.hasNext();
+    }
+
+    @Override
+    public Document next() {
+        return toDocument(lines.next());
+    }
+
+    static Document toDocument(Map<String, ?> fields) {
+        Object text = fields.get("text");
+        Map<String, Object> metadata = new HashMap<>(fields.size());
+        fields.forEach((key, value) -> {
+            if (value != null) {
+                metadata.put(key, value);
+            }
+        });
+        return new Document(text != null ? text.toString() : "", metadata);
+    }
+
+    @Override
+    public void close() throws IOException {
+        lines.close();
+    }
+}
@@ -0,0 +1,138 @@
+package com.beanvisionary.vector;
+
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.JsonWithInt;
+import io.qdrant.client.grpc.Points.PointId;
+import io.qdrant.client.grpc.Points.PointStruct;
+import io.qdrant.client.grpc.Points.RetrievedPoint;
+import io.qdrant.client.grpc.Points.ScrollPoints;
+import io.qdrant.client.grpc.Points.ScrollResponse;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static io.qdrant.client.PointIdFactory.id;
+import static io.qdrant.client.ValueFactory.value;
+import static io.qdrant.client.VectorsFactory.vectors;
+import static io.qdrant.client.WithPayloadSelectorFactory.include;
+import static io.qdrant.client.WithVectorsSelectorFactory.enable;
+
+/**
+ * {@link ChunkStore} writing straight to the Qdrant collection with one call per batch.
+ *
+ * Points use the same payload layout as {@code QdrantVectorStore} ({@code doc_content} plus the
+ * metadata), so the vector store reads them back as regular documents.
+ */
+class QdrantChunkStore implements ChunkStore {
+
+    private static final String CONTENT_FIELD_NAME = "doc_content";
+    private static final int SCROLL_PAGE_SIZE = 1024;
+
+    private final QdrantClient qdrantClient;
+    private final String collection;
+
+    QdrantChunkStore(QdrantClient qdrantClient, String collection) {
+        this.qdrantClient = qdrantClient;
+        this.collection = collection;
+    }
+
+    @Override
+    public Map<String, StoredChunk> lookup(List<String> ids) {
+        List<RetrievedPoint> points = await(qdrantClient.retrieveAsync(collection, pointIds(ids),
+                include(List.of(DocumentChunker.CONTENT_HASH, DocumentChunker.CHUNK_COUNT)), enable(false), null),
+                "read " + ids.size() + " points from");
+        Map<String, StoredChunk> stored = new HashMap<>(points.size());
+        for (RetrievedPoint point : points) {
+            Map<String, JsonWithInt.Value> payload = point.getPayloadMap();
+            JsonWithInt.Value hash = payload.get(DocumentChunker.CONTENT_HASH);
+            JsonWithInt.Value count = payload.get(DocumentChunker.CHUNK_COUNT);
+            stored.put(point.getId().getUuid(), new StoredChunk(hash != null ? hash.getStringValue() : null,
+                    count != null ? count.getIntegerValue() : 0));
+        }
+        return stored;
+    }
+
+    @Override
+    public void upsert(List<Document> chunks, List<float[]> embeddings) {
+        List<PointStruct> points = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            Document chunk = chunks.get(i);
+            points.add(PointStruct.newBuilder()
+                    .setId(id(UUID.fromString(chunk.getId())))
+                    .setVectors(vectors(embeddings.get(i)))
+                    .putAllPayload(toPayload(chunk))
+                    .build());
+        }
+        await(qdrantClient.upsertAsync(collection, points), "write " + points.size() + " points to");
+    }
+
+    @Override
+    public void delete(List<String> ids) {
+        await(qdrantClient.deleteAsync(collection, pointIds(ids)), "delete " + ids.size() + " points from");
+    }
+
+    /**
+     * Scrolls the whole collection, reading only the source id of each point.
+     */
+    @Override
+    public List<String> chunksOfOtherSources(Set<String> sourceIds) {
+        List<String> found = new ArrayList<>();
+        ScrollPoints.Builder request = ScrollPoints.newBuilder()
+                .setCollectionName(collection)
+                .setLimit(SCROLL_PAGE_SIZE)
+                .setWithPayload(include(List.of(DocumentChunker.SOURCE_ID)))
+                .setWithVectors(enable(false));
+        while (true) {
+            ScrollResponse page = await(qdrantClient.scrollAsync(request.build()), "scroll");
+            for (RetrievedPoint point : page.getResultList()) {
+                JsonWithInt.Value sourceId = point.getPayloadMap().get(DocumentChunker.SOURCE_ID);
+                if (sourceId != null && !sourceIds.contains(sourceId.getStringValue())) {
+                    found.add(point.getId().getUuid());
+                }
+            }
+            if (!page.hasNextPageOffset()) {
+                return found;
+            }
+            request.setOffset(page.getNextPageOffset());
+        }
+    }
+
+    private static List<PointId> pointIds(List<String> ids) {
+        return ids.stream().map(id -> id(UUID.fromString(id))).toList();
+    }
+
+    private <T> T await(Future<T> future, String action) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while trying to " + action + " " + collection, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to " + action + " " + collection, e.getCause());
+        }
+    }
+
+    private static Map<String, JsonWithInt.Value> toPayload(Document document) {
+        Map<String, JsonWithInt.Value> payload = new HashMap<>();
+        document.getMetadata().forEach((key, v) -> {
+            if (v instanceof Boolean b) {
+                payload.put(key, value(b));
+            } else if (v instanceof Double || v instanceof Float) {
+                payload.put(key, value(((Number) v).doubleValue()));
+            } else if (v instanceof Number n) {
+                payload.put(key, value(n.longValue()));
+            } else if (v != null) {
+                payload.put(key, value(v.toString()));
+            }
+        });
+        payload.put(CONTENT_FIELD_NAME, value(document.getText()));
+        return payload;
+    }
+}
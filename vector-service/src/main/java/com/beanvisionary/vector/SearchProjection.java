@@ -0,0 +1,64 @@
+package com.beanvisionary.vector;
+
+import org.springframework.ai.document.Document;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The fields of a search result a caller asked for with {@code fields=}.
+ *
+ * {@code id}, {@code score} and {@code text} select the document's own fields, {@code metadata}
+ * selects all metadata, and any other name selects that metadata key. Results are returned as
+ * maps holding only the selected fields, with metadata keys under {@code metadata}.
+ */
+final class SearchProjection {
+
+    private static final Set<String> DOCUMENT_FIELDS = Set.of("id", "score", "text", "metadata");
+
+    private final Set<String> fields;
+    private final List<String> metadataKeys;
+
+    private SearchProjection(Set<String> fields) {
+        this.fields = fields;
+        this.metadataKeys = fields.stream().filter(f -> !DOCUMENT_FIELDS.contains(f)).toList();
+    }
+
+    static SearchProjection parse(String fields) {
+        return new SearchProjection(Arrays.stream(fields.split(","))
+                .map(String::strip)
+                .filter(f -> !f.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+    }
+
+    Map<String, Object> apply(Document document) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (fields.contains("id")) {
+            result.put("id", document.getId());
+        }
+        if (fields.contains("score")) {
+            result.put("score", document.getScore());
+        }
+        if (fields.contains("text")) {
+            result.put("text", document.getText());
+        }
+        if (fields.contains("metadata")) {
+            result.put("metadata", document.getMetadata());
+        } else if (!metadataKeys.isEmpty()) {
+            Map<String, Object> metadata = new LinkedHashMap<>();
+            for (String key : metadataKeys) {
+                Object value = document.getMetadata().get(key);
+                if (value != null) {
+                    metadata.put(key, value);
+                }
+            }
+            result.put("metadata", metadata);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,118 @@
+package com.beanvisionary.vector;
+
+import com.beanvisionary.common.HybridSearch;
+import com.beanvisionary.common.VectorStoreChanged;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.beanvisionary.common.KafkaTopics.VECTOR_STORE_CHANGES;
+
+/**
+ * In-memory cache of search results, keyed on the full {@link SearchRequest} (query, top k,
+ * threshold and filter expression) and the search mode.
+ *
+ * Every entry is tagged with the collection version it was computed against. The version is
+ * bumped before and after each local write, and whenever another replica reports a write on
+ * {@code ai.vectors.changes.v1}, so a result computed while a write was in progress is never
+ * stored and older results are never served after the write. Entries also expire after
+ * {@code app.search-cache.ttl-ms} as a bound on cross-replica event delay.
+ */
+@Component
+public class SearchResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchResultCache.class);
+
+    private record Key(SearchRequest request, HybridSearch.Mode mode) {}
+
+    private record Entry(long version, long createdAtMs, List<Document> documents) {}
+
+    private final boolean enabled;
+    private final long ttlMs;
+    private final int maxEntries;
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Key, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+
+    public SearchResultCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.search-cache.enabled:true}") boolean enabled,
+            @Value("${app.search-cache.ttl-ms:60000}") long ttlMs,
+            @Value("${app.search-cache.max-entries:10000}") int maxEntries) {
+        this.enabled = enabled;
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > SearchResultCache.this.maxEntries;
+            }
+        };
+        this.hits = Counter.builder("vector.search.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("vector.search.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.invalidations = Counter.builder("vector.search.cache.invalidations").register(meterRegistry);
+        meterRegistry.gauge("vector.search.cache.size", entries, Map::size);
+        meterRegistry.gauge("vector.search.cache.version", version);
+    }
+
+    /**
+     * Returns the cached result for the request, or runs the search and caches its result
+     * if no write happened while it ran.
+     */
+    public List<Document> get(SearchRequest request, HybridSearch.Mode mode, Supplier<List<Document>> search) {
+        if (!enabled) {
+            return search.get();
+        }
+        Key key = new Key(request, mode);
+        long current = version.get();
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.version() == current && now - entry.createdAtMs() <= ttlMs) {
+                hits.increment();
+                return entry.documents();
+            }
+        }
+
+        misses.increment();
+        List<Document> documents = search.get();
+        synchronized (entries) {
+            if (version.get() == current) {
+                entries.put(key, new Entry(current, now, documents));
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Marks every cached result as stale. Called before and after each write.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        invalidations.increment();
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @KafkaListener(topics = VECTOR_STORE_CHANGES, groupId = "vector-service-cache-${random.uuid}",
+            autoStartup = "${app.search-cache.enabled:true}", properties = "auto.offset.reset=latest")
+    public void onVectorStoreChanged(VectorStoreChanged change) {
+        invalidate();
+        logger.debug("Search cache invalidated after {} documents were written to {}", change.documentCount(), change.collection());
+    }
+}
@@ -0,0 +1,87 @@
+package com.beanvisionary.vector;
+
+import com.beanvisionary.common.FlatVectorStore;
+import com.beanvisionary.common.HnswVectorStore;
+import com.beanvisionary.common.HybridSearch;
+import com.beanvisionary.common.LexicalIndex;
+import com.beanvisionary.common.LocalVectorStore;
+import io.qdrant.client.QdrantClient;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class VectorBackendConfig {
+
+    /**
+     * In-process HNSW index, used instead of Qdrant when {@code spring.ai.vectorstore.type=hnsw}
+     * (which also switches off the Qdrant auto-configuration). This service owns the index and
+     * saves a snapshot to {@code app.vectorstore.hnsw.directory} after every ingestion run.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.ai.vectorstore.type", havingValue = "hnsw")
+    public HnswVectorStore hnswVectorStore(
+            EmbeddingModel embeddingModel,
+            @Value("${app.vectorstore.hnsw.directory:}") String directory,
+            @Value("${app.vectorstore.hnsw.m:16}") int m,
+            @Value("${app.vectorstore.hnsw.ef-construction:200}") int efConstruction,
+            @Value("${app.vectorstore.hnsw.ef-search:64}") int efSearch) {
+        return new HnswVectorStore(embeddingModel, new HnswVectorStore.Options(m, efConstruction, efSearch),
+                directory.isBlank() ? null : Path.of(directory), false);
+    }
+
+    /**
+     * In-process brute-force index over int8-quantized vectors with full-precision rescoring, used
+     * instead of Qdrant when {@code spring.ai.vectorstore.type=flat}. Snapshotted to
+     * {@code app.vectorstore.flat.directory} like the HNSW index.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.ai.vectorstore.type", havingValue = "flat")
+    public FlatVectorStore flatVectorStore(
+            EmbeddingModel embeddingModel,
+            @Value("${app.vectorstore.flat.directory:}") String directory,
+            @Value("${app.vectorstore.flat.rescore-factor:4}") int rescoreFactor,
+            @Value("${app.vectorstore.flat.min-slots-per-task:16384}") int minSlotsPerTask) {
+        return new FlatVectorStore(embeddingModel, new FlatVectorStore.Options(rescoreFactor, minSlotsPerTask),
+                directory.isBlank() ? null : Path.of(directory), false);
+    }
+
+    /**
+     * BM25 index of chunk text kept alongside the vector collection when
+     * {@code app.lexical.enabled}. Ingestion feeds it every chunk, changed or not, and saves a
+     * snapshot to {@code app.lexical.directory} for ai-service to map.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.lexical.enabled", havingValue = "true")
+    public LexicalIndex lexicalIndex(@Value("${app.lexical.directory:}") String directory) {
+        return new LexicalIndex(directory.isBlank() ? null : Path.of(directory), false);
+    }
+
+    @Bean
+    public HybridSearch hybridSearch(
+            VectorStore vectorStore,
+            ObjectProvider<LexicalIndex> lexicalIndex,
+            @Value("${app.lexical.rrf-k:60}") int rrfK) {
+        return new HybridSearch(vectorStore, lexicalIndex.getIfAvailable(), rrfK);
+    }
+
+    /**
+     * Ingestion writes to the local store when there is one, otherwise straight to Qdrant.
+     */
+    @Bean
+    public ChunkStore chunkStore(
+            VectorStore vectorStore,
+            ObjectProvider<QdrantClient> qdrantClient,
+            @Value("${spring.ai.vectorstore.qdrant.collection-name}") String collection) {
+        if (vectorStore instanceof LocalVectorStore local) {
+            return new LocalChunkStore(local);
+        }
+        return new QdrantChunkStore(qdrantClient.getObject(), collection);
+    }
+}
@@ -1,34 +1,169 @@
 package com.beanvisionary.vector;
 
+import com.beanvisionary.common.HybridSearch;
+import com.beanvisionary.common.VectorStoreChanged;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionTextParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
+import static com.beanvisionary.common.KafkaTopics.VECTOR_STORE_CHANGES;
+
 @RestController
 @RequestMapping("/vectors")
 public class VectorController {
-    private final VectorStore store;
-    public VectorController(VectorStore store) { this.store = store; }
+    private static final Logger logger = LoggerFactory.getLogger(VectorController.class);
+
+    private final HybridSearch hybridSearch;
+    private final IngestionPipeline ingestionPipeline;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final SearchResultCache searchCache;
+    private final String collection;
+    private final Path fileRoot;
+
+    public VectorController(
+            HybridSearch hybridSearch,
+            IngestionPipeline ingestionPipeline,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            SearchResultCache searchCache,
+            @Value("${spring.ai.vectorstore.qdrant.collection-name}") String collection,
+            @Value("${app.ingest.file-root:}") String fileRoot) {
+        this.hybridSearch = hybridSearch;
+        this.ingestionPipeline = ingestionPipeline;
+        this.kafkaTemplate = kafkaTemplate;
+        this.searchCache = searchCache;
+        this.collection = collection;
+        this.fileRoot = fileRoot.isBlank() ? null : Path.of(fileRoot).toAbsolutePath().normalize();
+    }
 
+    /**
+     * {@code prune=true} on this and the ingest endpoints marks the request as a full sync: chunks
+     * of stored sources that are not in it are deleted.
+     */
     @PostMapping("/upsert")
-    public void upsert(@RequestBody List<Map<String, String>> docs) {
+    public IngestionPipeline.Report upsert(
+            @RequestBody List<Map<String, String>> docs,
+            @RequestParam(name = "prune", defaultValue = "false") boolean prune) {
         List<Document> toAdd = docs.stream()
-                .map(m -> new Document(m.getOrDefault("text", ""), (Map<String, Object>) (Map) m))
+                .map(NdjsonDocumentReader::toDocument)
                 .toList();
-        store.add(toAdd);
+        return ingest(toAdd.iterator(), prune);
+    }
+
+    /**
+     * Streams newline-delimited JSON documents from the request body into the ingestion pipeline,
+     * one line at a time, so the corpus never has to fit in memory.
+     */
+    @PostMapping(path = "/ingest", consumes = {"application/x-ndjson", "application/jsonl", MediaType.TEXT_PLAIN_VALUE})
+    public IngestionPipeline.Report ingestStream(
+            InputStream body,
+            @RequestParam(name = "prune", defaultValue = "false") boolean prune) throws IOException {
+        try (NdjsonDocumentReader reader = new NdjsonDocumentReader(body)) {
+            return ingest(reader, prune);
+        }
     }
 
+    /**
+     * Ingests a newline-delimited JSON file that is already on this host. The path is resolved
+     * against {@code app.ingest.file-root}; the endpoint is disabled while that is unset.
+     */
+    @PostMapping("/ingest/file")
+    public IngestionPipeline.Report ingestFile(
+            @RequestParam("path") String path,
+            @RequestParam(name = "prune", defaultValue = "false") boolean prune) throws IOException {
+        if (fileRoot == null) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "File ingestion is disabled (app.ingest.file-root is not set)");
+        }
+        Path file = fileRoot.resolve(path).normalize();
+        if (!file.startsWith(fileRoot) || !Files.isRegularFile(file)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a file under the ingest root: " + path);
+        }
+        try (NdjsonDocumentReader reader = new NdjsonDocumentReader(Files.newInputStream(file))) {
+            return ingest(reader, prune);
+        }
+    }
+
+    /**
+     * Searches by embedding ({@code mode=vector}, the default), by BM25 over the lexical index
+     * ({@code lexical}), or both fused ({@code hybrid}); without {@code app.lexical.enabled} every mode
+     * searches by embedding.
+     *
+     * {@code filter} is a Spring AI filter expression over metadata, e.g.
+     * {@code tenant == 'acme' && year >= 2024}. It is evaluated by the store (as a Qdrant payload
+     * filter, or in process for the local stores), so the top {@code k} are taken from matching
+     * documents only. {@code fields} limits each result to the listed fields (see
+     * {@link SearchProjection}); without it full documents are returned.
+     */
     @GetMapping("/search")
-    public List<Document> search(
+    public List<?> search(
             @RequestParam("q") String q,
-            @RequestParam(name = "k", defaultValue = "4") int k) {
-        return store.similaritySearch(SearchRequest.builder()
+            @RequestParam(name = "k", defaultValue = "4") int k,
+            @RequestParam(name = "mode", defaultValue = "vector") String mode,
+            @RequestParam(name = "filter", required = false) String filter,
+            @RequestParam(name = "fields", required = false) String fields) {
+        HybridSearch.Mode searchMode;
+        try {
+            searchMode = HybridSearch.Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown search mode: " + mode);
+        }
+        SearchRequest.Builder builder = SearchRequest.builder()
                 .query(q)
-                .topK(k)
-                .build());
+                .topK(k);
+        if (filter != null && !filter.isBlank()) {
+            try {
+                builder.filterExpression(filter);
+            } catch (FilterExpressionTextParser.FilterExpressionParseException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid filter expression: " + e.getMessage());
+            }
+        }
+        SearchRequest request = builder.build();
+        List<Document> documents = searchCache.get(request, searchMode, () -> hybridSearch.search(request, searchMode).documents());
+        if (fields == null || fields.isBlank()) {
+            return documents;
+        }
+        SearchProjection projection = SearchProjection.parse(fields);
+        return documents.stream().map(projection::apply).toList();
+    }
+
+    private IngestionPipeline.Report ingest(Iterator<Document> documents, boolean prune) {
+        searchCache.invalidate();
+        try (IngestionPipeline.Ingestion ingestion = ingestionPipeline.open(prune)) {
+            try {
+                documents.forEachRemaining(ingestion::add);
+                return ingestion.finish();
+            } finally {
+                searchCache.invalidate();
+                if (ingestion.changed() > 0) {
+                    publishChange(ingestion.changed());
+                }
+            }
+        }
+    }
+
+    private void publishChange(long documentCount) {
+        try {
+            kafkaTemplate.send(VECTOR_STORE_CHANGES, collection,
+                    new VectorStoreChanged(collection, (int) Math.min(documentCount, Integer.MAX_VALUE), Instant.now()));
+        } catch (Exception e) {
+            logger.error("Failed to publish change event for collection {}: {}", collection, e.getMessage(), e);
+        }
     }
 }
@@ -0,0 +1,163 @@
+package com.beanvisionary.vector;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks chunk sizes and overlap, that a source's chunks keep their ids and hashes across reloads,
+ * and the metadata each chunk carries.
+ */
+class DocumentChunkerTest {
+
+    private static final int MAX_TOKENS = 50;
+    private static final int OVERLAP_TOKENS = 10;
+
+    private final Encoding encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+    private final DocumentChunker chunker = new DocumentChunker(MAX_TOKENS, OVERLAP_TOKENS);
+
+    @Test
+    void shortTextIsOneChunk() {
+        List<Document> chunks = chunker.chunk(source("order-1", "Order A12345 shipped on Monday."));
+
+        assertEquals(1, chunks.size());
+        assertEquals("Order A12345 shipped on Monday.", chunks.get(0).getText());
+    }
+
+    @Test
+    void chunksStayWithinBudgetAndOverlap() {
+        String text = words(0, 400);
+        List<Document> chunks = chunker.chunk(source("manual", text));
+
+        assertTrue(chunks.size() > 1);
+        List<String> rebuilt = new ArrayList<>(words(chunks.get(0)));
+        for (int i = 0; i < chunks.size(); i++) {
+            assertTrue(encoding.countTokens(chunks.get(i).getText()) <= MAX_TOKENS, "chunk " + i + " over budget");
+            if (i == 0) {
+                continue;
+            }
+            List<String> previous = words(chunks.get(i - 1));
+            List<String> current = words(chunks.get(i));
+            int overlap = overlap(previous, current);
+            assertTrue(overlap > 0, "chunk " + i + " does not overlap the previous one");
+            assertTrue(encoding.countTokens(String.join(" ", current.subList(0, overlap))) <= OVERLAP_TOKENS,
+                    "chunk " + i + " overlaps by more than " + OVERLAP_TOKENS + " tokens");
+            rebuilt.addAll(current.subList(overlap, current.size()));
+        }
+        // without the overlaps, the chunks are the source text
+        assertEquals(Arrays.asList(text.split(" ")), rebuilt);
+    }
+
+    @Test
+    void overlapIsCappedAtHalfTheBudget() {
+        DocumentChunker wide = new DocumentChunker(20, 40);
+        List<Document> chunks = wide.chunk(source("manual", words(0, 200)));
+
+        for (int i = 1; i < chunks.size(); i++) {
+            List<String> current = words(chunks.get(i));
+            int overlap = overlap(words(chunks.get(i - 1)), current);
+            assertTrue(encoding.countTokens(String.join(" ", current.subList(0, overlap))) <= 10);
+        }
+    }
+
+    @Test
+    void idsAreStableForASource() {
+        List<Document> first = chunker.chunk(source("manual", words(0, 400)));
+        List<Document> second = chunker.chunk(source("manual", words(0, 400)));
+        List<Document> other = chunker.chunk(source("guide", words(0, 400)));
+
+        assertEquals(ids(first), ids(second));
+        assertEquals(DocumentChunker.chunkIds("manual", 0, first.size()), ids(first));
+        assertEquals(first.size(), ids(first).stream().distinct().count());
+        assertTrue(ids(other).stream().noneMatch(ids(first)::contains));
+    }
+
+    @Test
+    void sourcesWithoutIdGetFreshIds() {
+        Document source = Document.builder().text(words(0, 400)).build();
+
+        assertTrue(ids(chunker.chunk(source)).stream().noneMatch(ids(chunker.chunk(source))::contains));
+        assertFalse(chunker.chunk(source).get(0).getMetadata().containsKey(DocumentChunker.SOURCE_ID));
+    }
+
+    @Test
+    void chunksCarrySourceMetadata() {
+        Document source = Document.builder()
+                .text(words(0, 400))
+                .metadata(Map.of("id", "manual", "text", "duplicate of the text", "region", "eu"))
+                .build();
+        List<Document> chunks = chunker.chunk(source);
+
+        for (int i = 0; i < chunks.size(); i++) {
+            Map<String, Object> metadata = chunks.get(i).getMetadata();
+            assertEquals("manual", metadata.get(DocumentChunker.SOURCE_ID));
+            assertEquals(i, metadata.get(DocumentChunker.CHUNK_INDEX));
+            assertEquals(chunks.size(), metadata.get(DocumentChunker.CHUNK_COUNT));
+            assertEquals("eu", metadata.get("region"));
+            assertFalse(metadata.containsKey("text"));
+        }
+    }
+
+    @Test
+    void hashesChangeOnlyWithTheChunk() {
+        List<Document> original = chunker.chunk(source("manual", words(0, 400)));
+        List<Document> extended = chunker.chunk(source("manual", words(0, 400) + " " + words(400, 600)));
+        List<Document> edited = chunker.chunk(source("manual", words(0, 399) + " changed"));
+
+        assertTrue(extended.size() > original.size());
+        // the chunk count is not hashed, so chunks before the change keep their hash
+        for (int i = 0; i < original.size() - 1; i++) {
+            assertEquals(hash(original.get(i)), hash(extended.get(i)));
+        }
+        int last = original.size() - 1;
+        assertEquals(original.size(), edited.size());
+        assertEquals(hash(original.get(0)), hash(edited.get(0)));
+        assertNotEquals(hash(original.get(last)), hash(edited.get(last)));
+    }
+
+    private static Document source(String id, String text) {
+        return Document.builder().text(text).metadata(Map.of("id", id)).build();
+    }
+
+    private static String words(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> "word" + i).collect(Collectors.joining(" "));
+    }
+
+    private static List<String> words(Document chunk) {
+        return Arrays.asList(chunk.getText().split(" "));
+    }
+
+    /**
+     * @return the number of words that {@code current} starts with and {@code previous} ends with
+     */
+    private static int overlap(List<String> previous, List<String> current) {
+        for (int n = Math.min(previous.size(), current.size()); n > 0; n--) {
+            if (previous.subList(previous.size() - n, previous.size()).equals(current.subList(0, n))) {
+                return n;
+            }
+        }
+        return 0;
+    }
+
+    private static List<String> ids(List<Document> chunks) {
+        return chunks.stream().map(Document::getId).toList();
+    }
+
+    private static Object hash(Document chunk) {
+        return chunk.getMetadata().get(DocumentChunker.CONTENT_HASH);
+    }
+}